@@ -0,0 +1,27 @@
+package cop3530;
+
+/**
+ * Double-Ended priority queue whose items can be reached after they are
+ * added. insert hands back a handle for the item, which can later be used to
+ * remove it or change its value without draining the queue
+ *
+ * @author David Romero PID: 3624439
+ */
+public interface AddressableDoubleEndedPriorityQueue<AnyType> extends
+        DoubleEndedPriorityQueue<AnyType>
+{
+    /**
+     * Refers to one item in the queue
+     *
+     * @param <AnyType> The type of data in the queue
+     */
+    interface Handle<AnyType>
+    {
+        AnyType getValue( );
+    }
+
+    Handle<AnyType> insert( AnyType x );
+    boolean remove( Handle<AnyType> h );
+    boolean contains( AnyType x );
+    void changeKey( Handle<AnyType> h, AnyType newValue );
+}
@@ -0,0 +1,644 @@
+package cop3530;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements a double ended priority queue as a B+ tree. Nodes
+ * are wide arrays instead of one object per item, so a search touches one
+ * node per level of a tree that is only log base 32 of n deep, and items
+ * next to each other in order sit next to each other in memory. Every item
+ * is in a leaf and the leaves are linked in order, so the smallest and
+ * largest are found in O(1) time at the ends of the first and last leaf.
+ * Deleting from an end only shifts an offset inside that leaf; a leaf is
+ * unlinked when it empties (instead of being merged with its neighbour when
+ * half empty), which suits a queue that is only ever deleted from its ends
+ *
+ * @author David Romero PID: 3624439
+ */
+public class BTreeDoubleEndedPriorityQueue<AnyType> implements
+        DoubleEndedPriorityQueue<AnyType>, Iterable<AnyType>
+{
+    private static final int DEFAULT_ORDER = 32;
+
+    private final Comparator<? super AnyType> cmp;//Comparator for the data
+    private final int order;                //Most entries in a node
+    private Node root;                      //Root of the tree
+    private Leaf head;                      //Leaf with the smallest items
+    private Leaf tail;                      //Leaf with the largest items
+    private int size = 0;                   //Number of items in the tree
+    private int modCount = 0;               //Changes, for fail-fast iterators
+
+    private Object splitKey;                //Separator from the last split
+    private Node splitNode;                 //Right half of the last split
+
+    /**
+     * A node of the tree
+     */
+    private abstract static class Node
+    {
+    }
+
+    /**
+     * A leaf holds items in order in keys[lo] to keys[hi - 1], and is linked
+     * to the leaves before and after it
+     */
+    private static final class Leaf extends Node
+    {
+        private final Object[] keys;        //The items
+        private int lo = 0;                 //Index of the first item
+        private int hi = 0;                 //Index past the last item
+        private Leaf prev;                  //Leaf with the next smaller items
+        private Leaf next;                  //Leaf with the next larger items
+
+        /**
+         * Creates an empty leaf
+         *
+         * @param order The most items it can hold
+         */
+        Leaf(int order)
+        {
+            keys = new Object[order];
+        }
+    }
+
+    /**
+     * An internal node has count children, and keys[i] is the smallest item
+     * that can be under children[i + 1]. The arrays have one spare slot so a
+     * node can overflow by one entry before it is split
+     */
+    private static final class Internal extends Node
+    {
+        private final Object[] keys;        //Separators between children
+        private final Node[] children;      //The subtrees
+        private int count = 0;              //Number of children
+
+        /**
+         * Creates an empty internal node
+         *
+         * @param order The most children it can hold
+         */
+        Internal(int order)
+        {
+            keys = new Object[order];
+            children = new Node[order + 1];
+        }
+    }
+
+    /**
+     * Constructs an empty queue
+     */
+    public BTreeDoubleEndedPriorityQueue()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs an empty queue that accepts a different comparator
+     *
+     * @param c Comparator that will be used
+     */
+    public BTreeDoubleEndedPriorityQueue(Comparator<? super AnyType> c)
+    {
+        this(c, DEFAULT_ORDER);
+    }
+
+    /**
+     * Constructs an empty queue that accepts a different comparator and node
+     * width. 32 references fill two 64 byte cache lines with compressed
+     * pointers
+     *
+     * @param c Comparator that will be used
+     * @param order The most items in a leaf and children of an internal
+     * node, at least 4
+     */
+    public BTreeDoubleEndedPriorityQueue(Comparator<? super AnyType> c,
+            int order)
+    {
+        if (order < 4)
+        {
+            throw new IllegalArgumentException("Order must be at least 4");
+        }
+
+        cmp = NaturalOrder.orNatural(c);
+        this.order = order;
+        makeEmpty();
+    }
+
+    /**
+     * Compares two pieces of data with the comparator picked at construction
+     * (natural ordering if none was given).
+     *
+     * @param lhs The first piece data being used to compare
+     * @param rhs The second piece of data being used to compare
+     * @return -1 if lhs is less than rhs, 1 if it's greater, 0 if it is equal
+     */
+    public int myCompare(AnyType lhs, AnyType rhs)
+    {
+        return cmp.compare(lhs, rhs);
+    }
+
+    /**
+     * Returns the comparator that orders the queue
+     *
+     * @return The comparator, natural ordering if none was given
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return cmp;
+    }
+
+    /**
+     * Empties the queue
+     */
+    @Override
+    public void makeEmpty()
+    {
+        head = tail = new Leaf(order);
+        root = head;
+        size = 0;
+        ++modCount;
+    }
+
+    /**
+     * Adds data to the queue. Equal items go after the ones already there
+     *
+     * @param x The data to be added
+     */
+    @Override
+    public void add(AnyType x)
+    {
+        //Every comparison happens on the way down, before anything moves, so
+        //a comparator that throws leaves the tree and its counts as they were
+        if (insert(root, x))
+        {
+            Internal r = new Internal(order);
+            r.children[0] = root;
+            r.children[1] = splitNode;
+            r.keys[0] = splitKey;
+            r.count = 2;
+            root = r;
+        }
+        splitKey = null;
+        splitNode = null;
+        ++modCount;
+        ++size;
+    }
+
+    /**
+     * Deletes the smallest value
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        ++modCount;
+        --size;
+        Leaf l = head;
+        AnyType x = item(l, l.lo);
+        l.keys[l.lo++] = null;
+
+        if (l.lo == l.hi)
+        {
+            if (l == tail)
+            {
+                l.lo = l.hi = 0;
+            }
+            else
+            {
+                head = l.next;
+                head.prev = null;
+                dropFirst((Internal) root);
+                shrinkRoot();
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Deletes the largest value
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        ++modCount;
+        --size;
+        Leaf l = tail;
+        AnyType x = item(l, --l.hi);
+        l.keys[l.hi] = null;
+
+        if (l.lo == l.hi)
+        {
+            if (l == head)
+            {
+                l.lo = l.hi = 0;
+            }
+            else
+            {
+                tail = l.prev;
+                tail.next = null;
+                dropLast((Internal) root);
+                shrinkRoot();
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Finds the smallest value
+     *
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return item(head, head.lo);
+    }
+
+    /**
+     * Finds the largest value
+     *
+     * @return The largest value
+     */
+    @Override
+    public AnyType findMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return item(tail, tail.hi - 1);
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values in the queue. Walks the leaves
+     * counting runs of equal items, so it takes O(n) time
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        int runs = 0;
+        AnyType prev = null;
+
+        for (AnyType x : this)
+        {
+            if (runs == 0 || myCompare(prev, x) != 0)
+            {
+                ++runs;
+            }
+            prev = x;
+        }
+        return runs;
+    }
+
+    /**
+     * Returns an iterator over the items in ascending order
+     *
+     * @return The iterator
+     */
+    @Override
+    public Iterator<AnyType> iterator()
+    {
+        return new LeafIterator();
+    }
+
+    /**
+     * Prints the queue
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        if (isEmpty())
+        {
+            return "[]";
+        }
+
+        StringBuilder sb = new StringBuilder("[ ");
+        for (AnyType x : this)
+        {
+            sb.append(x);
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+
+    /**
+     * Returns an item of a leaf
+     *
+     * @param l The leaf
+     * @param i The index of the item
+     * @return The item
+     */
+    @SuppressWarnings("unchecked")
+    private static <AnyType> AnyType item(Leaf l, int i)
+    {
+        return (AnyType) l.keys[i];
+    }
+
+    /**
+     * Finds the first index in keys[lo] to keys[hi - 1] whose key is larger
+     * than x, so equal keys are passed over
+     *
+     * @param keys The sorted keys
+     * @param lo The first index searched
+     * @param hi The index past the last one searched
+     * @param x The data being placed
+     * @return The index
+     */
+    @SuppressWarnings("unchecked")
+    private int upperBound(Object[] keys, int lo, int hi, AnyType x)
+    {
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (myCompare((AnyType) keys[mid], x) <= 0)
+            {
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Adds data under a node. If the node had to split, the separator and
+     * the new right node are left in splitKey and splitNode
+     *
+     * @param n The node
+     * @param x The data to be added
+     * @return True if the node split
+     */
+    private boolean insert(Node n, AnyType x)
+    {
+        if (n instanceof Leaf)
+        {
+            return insertLeaf((Leaf) n, x);
+        }
+
+        Internal in = (Internal) n;
+        int c = upperBound(in.keys, 0, in.count - 1, x);
+        if (!insert(in.children[c], x))
+        {
+            return false;
+        }
+
+        //Put the new child right after the one that split
+        System.arraycopy(in.keys, c, in.keys, c + 1, in.count - 1 - c);
+        System.arraycopy(in.children, c + 1, in.children, c + 2,
+                in.count - 1 - c);
+        in.keys[c] = splitKey;
+        in.children[c + 1] = splitNode;
+        if (++in.count <= order)
+        {
+            return false;
+        }
+
+        //Overfull by one: move the upper half of the children to a new node
+        //and pass the separator between the halves up
+        Internal right = new Internal(order);
+        int h = in.count / 2;
+        right.count = in.count - h;
+        System.arraycopy(in.children, h, right.children, 0, right.count);
+        System.arraycopy(in.keys, h, right.keys, 0, right.count - 1);
+        splitKey = in.keys[h - 1];
+        Arrays.fill(in.children, h, in.count, null);
+        Arrays.fill(in.keys, h - 1, in.count - 1, null);
+        in.count = h;
+        splitNode = right;
+        return true;
+    }
+
+    /**
+     * Adds data to a leaf, splitting it if it is full
+     *
+     * @param l The leaf
+     * @param x The data to be added
+     * @return True if the leaf split
+     */
+    private boolean insertLeaf(Leaf l, AnyType x)
+    {
+        int p = upperBound(l.keys, l.lo, l.hi, x);
+
+        if (l.hi < order)
+        {
+            System.arraycopy(l.keys, p, l.keys, p + 1, l.hi - p);
+            l.keys[p] = x;
+            ++l.hi;
+            return false;
+        }
+        if (l.lo > 0)
+        {
+            System.arraycopy(l.keys, l.lo, l.keys, l.lo - 1, p - l.lo);
+            l.keys[p - 1] = x;
+            --l.lo;
+            return false;
+        }
+
+        //Full. Items added past the largest or before the smallest get a
+        //leaf of their own, so sorted input fills every leaf. Otherwise the
+        //upper half moves to the new leaf
+        Leaf right = new Leaf(order);
+        if (l == tail && p == order)
+        {
+            right.keys[0] = x;
+            right.hi = 1;
+        }
+        else if (l == head && p == 0)
+        {
+            System.arraycopy(l.keys, 0, right.keys, 0, order);
+            right.hi = order;
+            Arrays.fill(l.keys, null);
+            l.keys[0] = x;
+            l.hi = 1;
+        }
+        else
+        {
+            int mid = order / 2;
+            System.arraycopy(l.keys, mid, right.keys, 0, order - mid);
+            Arrays.fill(l.keys, mid, order, null);
+            right.hi = order - mid;
+            l.hi = mid;
+            if (p <= mid)
+            {
+                System.arraycopy(l.keys, p, l.keys, p + 1, mid - p);
+                l.keys[p] = x;
+                ++l.hi;
+            }
+            else
+            {
+                p -= mid;
+                System.arraycopy(right.keys, p, right.keys, p + 1,
+                        right.hi - p);
+                right.keys[p] = x;
+                ++right.hi;
+            }
+        }
+
+        right.prev = l;
+        right.next = l.next;
+        if (l.next != null)
+        {
+            l.next.prev = right;
+        }
+        l.next = right;
+        if (l == tail)
+        {
+            tail = right;
+        }
+
+        splitKey = right.keys[0];
+        splitNode = right;
+        return true;
+    }
+
+    /**
+     * Removes the first leaf, which is empty, from under a node
+     *
+     * @param n The node on the path to the first leaf
+     * @return True if the node has no children left
+     */
+    private static boolean dropFirst(Internal n)
+    {
+        Node c = n.children[0];
+        if (c instanceof Internal && !dropFirst((Internal) c))
+        {
+            return false;
+        }
+
+        --n.count;
+        System.arraycopy(n.children, 1, n.children, 0, n.count);
+        n.children[n.count] = null;
+        if (n.count > 0)
+        {
+            System.arraycopy(n.keys, 1, n.keys, 0, n.count - 1);
+            n.keys[n.count - 1] = null;
+        }
+        return n.count == 0;
+    }
+
+    /**
+     * Removes the last leaf, which is empty, from under a node
+     *
+     * @param n The node on the path to the last leaf
+     * @return True if the node has no children left
+     */
+    private static boolean dropLast(Internal n)
+    {
+        Node c = n.children[n.count - 1];
+        if (c instanceof Internal && !dropLast((Internal) c))
+        {
+            return false;
+        }
+
+        n.children[--n.count] = null;
+        if (n.count > 0)
+        {
+            n.keys[n.count - 1] = null;
+        }
+        return n.count == 0;
+    }
+
+    /**
+     * Replaces a root that has one child with that child, until the root
+     * is a leaf or has two or more children
+     */
+    private void shrinkRoot()
+    {
+        while (root instanceof Internal && ((Internal) root).count == 1)
+        {
+            root = ((Internal) root).children[0];
+        }
+    }
+
+    /**
+     * Walks the leaves from first to last. Fails fast if the queue is
+     * changed while walking
+     */
+    private class LeafIterator implements Iterator<AnyType>
+    {
+        private Leaf leaf = head;               //Leaf being walked
+        private int i = head.lo;                //Index of the next item
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext()
+        {
+            return i < leaf.hi;
+        }
+
+        @Override
+        public AnyType next()
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (i >= leaf.hi)
+            {
+                throw new NoSuchElementException();
+            }
+
+            AnyType x = item(leaf, i++);
+            if (i == leaf.hi && leaf.next != null)
+            {
+                leaf = leaf.next;
+                i = leaf.lo;
+            }
+            return x;
+        }
+    }
+}
@@ -0,0 +1,925 @@
+package cop3530;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times the double ended priority queues on sorted, reverse sorted and random
+ * input. Reports the average cost per operation so the shape of the growth
+ * can be compared across input orders and sizes
+ *
+ * Usage: java cop3530.Benchmark [number of elements]
+ *
+ * @author David Romero PID: 3624439
+ */
+public class Benchmark
+{
+    private static final int DEFAULT_N = 10000000;
+
+    /**
+     * Builds the input keys for the given order
+     *
+     * @param order "sorted", "reverse" or "random"
+     * @param n The number of keys
+     * @return The keys
+     */
+    static Integer[] keys(String order, int n)
+    {
+        Integer[] keys = new Integer[n];
+        Random r = new Random(1);
+
+        for (int i = 0; i < n; i++)
+        {
+            switch (order)
+            {
+                case "sorted":
+                    keys[i] = i;
+                    break;
+                case "reverse":
+                    keys[i] = n - i;
+                    break;
+                default:
+                    keys[i] = r.nextInt();
+                    break;
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Prints the average time per operation
+     *
+     * @param label What was timed
+     * @param start Start time in nanoseconds
+     * @param ops The number of operations timed
+     */
+    static void report(String label, long start, int ops)
+    {
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("  %-28s %10.1f ns/op%n", label,
+                (double) elapsed / ops);
+    }
+
+    /**
+     * Adds all the keys, then removes half from each end
+     *
+     * @param q The queue to time
+     * @param keys The keys to add
+     */
+    static <AnyType> void run(DoubleEndedPriorityQueue<AnyType> q,
+            AnyType[] keys)
+    {
+        long start = System.nanoTime();
+        for (AnyType k : keys)
+        {
+            q.add(k);
+        }
+        report("add", start, keys.length);
+
+        start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            sink += q.findMin().hashCode() + q.findMax().hashCode();
+        }
+        report("findMin + findMax", start, keys.length);
+        if (sink == 42)
+        {
+            System.out.println();
+        }
+
+        drain(q);
+    }
+
+    /**
+     * Removes half the items from the small end, then the rest from the
+     * large end
+     *
+     * @param q The queue to time
+     */
+    static <AnyType> void drain(DoubleEndedPriorityQueue<AnyType> q)
+    {
+        int n = q.size();
+        long start = System.nanoTime();
+        for (int i = 0; i < n / 2; i++)
+        {
+            q.deleteMin();
+        }
+        report("deleteMin", start, n / 2);
+
+        start = System.nanoTime();
+        while (!q.isEmpty())
+        {
+            q.deleteMax();
+        }
+        report("deleteMax", start, n - n / 2);
+    }
+
+    /**
+     * Same workload as run, on the primitive long queue
+     *
+     * @param q The queue to time
+     * @param keys The keys to add
+     */
+    static void run(LongDoubleEndedPriorityQueue q, long[] keys)
+    {
+        long start = System.nanoTime();
+        for (long k : keys)
+        {
+            q.add(k);
+        }
+        report("add", start, keys.length);
+
+        start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            sink += q.findMin() + q.findMax();
+        }
+        report("findMin + findMax", start, keys.length);
+        if (sink == 42)
+        {
+            System.out.println();
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < keys.length / 2; i++)
+        {
+            q.deleteMin();
+        }
+        report("deleteMin", start, keys.length / 2);
+
+        start = System.nanoTime();
+        while (!q.isEmpty())
+        {
+            q.deleteMax();
+        }
+        report("deleteMax", start, keys.length - keys.length / 2);
+    }
+
+    /**
+     * Compares the primitive long queue with the boxed min-max heap on the
+     * same random keys
+     *
+     * @param n The number of keys
+     */
+    static void comparePrimitive(int n)
+    {
+        Random r = new Random(1);
+        long[] keys = new long[n];
+        Long[] boxed = new Long[n];
+        for (int i = 0; i < n; i++)
+        {
+            keys[i] = r.nextLong();
+            boxed[i] = keys[i];
+        }
+
+        System.out.println("boxed Long min-max heap, random, n = " + n);
+        run(new MinMaxHeapDoubleEndedPriorityQueue<Long>(), boxed);
+
+        System.out.println("primitive long heap, random, n = " + n);
+        run(new LongDoubleEndedPriorityQueue(), keys);
+    }
+
+    /**
+     * Returns how many garbage collections have run so far
+     *
+     * @return The number of collections
+     */
+    static long collections()
+    {
+        long total = 0;
+        for (GarbageCollectorMXBean gc
+                : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            total += Math.max(gc.getCollectionCount(), 0);
+        }
+        return total;
+    }
+
+    /**
+     * Loads and drains priority and payload records in a balanced tree of
+     * boxed priorities and in the off-heap queue, counting the garbage
+     * collections each one causes
+     *
+     * @param n The number of records
+     */
+    static void compareOffHeap(int n)
+    {
+        Random r = new Random(1);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++)
+        {
+            keys[i] = r.nextLong();
+        }
+
+        System.out.println("boxed Long balanced tree, random, n = " + n);
+        TreeDoubleEndedPriorityQueue<Long> tree
+                = new TreeDoubleEndedPriorityQueue<>(true);
+        long gcs = collections();
+        long start = System.nanoTime();
+        for (long k : keys)
+        {
+            tree.add(k);
+        }
+        while (!tree.isEmpty())
+        {
+            tree.deleteMin();
+        }
+        report("add + deleteMin", start, 2 * n);
+        System.out.println("  garbage collections          "
+                + (collections() - gcs));
+
+        System.out.println("off-heap record heap, random, n = " + n);
+        try (OffHeapLongDoubleEndedPriorityQueue q
+                = new OffHeapLongDoubleEndedPriorityQueue())
+        {
+            gcs = collections();
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++)
+            {
+                q.add(keys[i], i);
+            }
+            while (!q.isEmpty())
+            {
+                q.deleteMin();
+            }
+            report("add + deleteMin", start, 2 * n);
+            System.out.println("  garbage collections          "
+                    + (collections() - gcs));
+        }
+    }
+
+    /**
+     * The usual way of sharing a queue: every call holds one global lock
+     *
+     * @param <AnyType> The type of data in the queue
+     */
+    static class SynchronizedQueue<AnyType> implements
+            DoubleEndedPriorityQueue<AnyType>
+    {
+        private final DoubleEndedPriorityQueue<AnyType> q;
+
+        SynchronizedQueue(DoubleEndedPriorityQueue<AnyType> q)
+        {
+            this.q = q;
+        }
+
+        public synchronized void makeEmpty()
+        {
+            q.makeEmpty();
+        }
+
+        public synchronized void add(AnyType x)
+        {
+            q.add(x);
+        }
+
+        public synchronized AnyType deleteMin()
+        {
+            return q.deleteMin();
+        }
+
+        public synchronized AnyType deleteMax()
+        {
+            return q.deleteMax();
+        }
+
+        public synchronized AnyType findMin()
+        {
+            return q.findMin();
+        }
+
+        public synchronized AnyType findMax()
+        {
+            return q.findMax();
+        }
+
+        public synchronized boolean isEmpty()
+        {
+            return q.isEmpty();
+        }
+
+        public synchronized int size()
+        {
+            return q.size();
+        }
+
+        public synchronized int distinctSize()
+        {
+            return q.distinctSize();
+        }
+
+        public Comparator<? super AnyType> comparator()
+        {
+            return q.comparator();
+        }
+    }
+
+    /**
+     * Runs a fixed number of operations split across threads. Each thread
+     * adds a random key and then deletes from alternating ends, so the queue
+     * stays around its initial size
+     *
+     * @param q The shared queue, already filled
+     * @param threads The number of threads
+     * @param ops The total number of add/delete pairs
+     * @return Operations per microsecond
+     */
+    static double contend(final DoubleEndedPriorityQueue<Integer> q,
+            int threads, int ops) throws InterruptedException
+    {
+        final int perThread = ops / threads;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++)
+        {
+            new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    ThreadLocalRandom r = ThreadLocalRandom.current();
+                    try
+                    {
+                        start.await();
+                        for (int i = 0; i < perThread; i++)
+                        {
+                            q.add(r.nextInt());
+                            try
+                            {
+                                if ((i & 1) == 0)
+                                {
+                                    q.deleteMin();
+                                }
+                                else
+                                {
+                                    q.deleteMax();
+                                }
+                            }
+                            catch (UnderflowException e)
+                            {
+                                //Another thread emptied the queue first
+                            }
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        return 2.0 * perThread * threads / (elapsed / 1000.0);
+    }
+
+    /**
+     * Compares the concurrent queue with a synchronized tree from 1 to 64
+     * threads
+     *
+     * @param n The number of items in the queue while it is being hammered
+     */
+    static void compareConcurrent(int n) throws InterruptedException
+    {
+        int ops = 2000000;
+        Integer[] keys = keys("random", n);
+
+        System.out.println("contention, n = " + n + ", ops/us");
+        System.out.printf("  %-8s %14s %14s%n", "threads", "synchronized",
+                "concurrent");
+        for (int threads = 1; threads <= 64; threads *= 2)
+        {
+            DoubleEndedPriorityQueue<Integer> locked = new SynchronizedQueue<>(
+                    new TreeDoubleEndedPriorityQueue<Integer>(true));
+            DoubleEndedPriorityQueue<Integer> lockFree
+                    = new ConcurrentDoubleEndedPriorityQueue<>();
+            for (Integer k : keys)
+            {
+                locked.add(k);
+                lockFree.add(k);
+            }
+
+            System.out.printf("  %-8d %14.2f %14.2f%n", threads,
+                    contend(locked, threads, ops),
+                    contend(lockFree, threads, ops));
+        }
+    }
+
+    /**
+     * Measures how long a parked consumer takes to wake up after an item is
+     * put in an empty blocking queue. Each item carries the time it was put
+     *
+     * @param handoffs The number of items passed from producer to consumer
+     */
+    static void wakeUpLatency(int handoffs) throws InterruptedException
+    {
+        final BlockingDoubleEndedPriorityQueue<Long> q
+                = new MinMaxHeapBlockingDoubleEndedPriorityQueue<>();
+        final long[] latencies = new long[handoffs];
+
+        Thread consumer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    for (int i = 0; i < latencies.length; i++)
+                    {
+                        long put = q.takeMin();
+                        latencies[i] = System.nanoTime() - put;
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        consumer.start();
+
+        for (int i = 0; i < handoffs; i++)
+        {
+            //Give the consumer time to park on the empty queue
+            Thread.sleep(0, 50000);
+            q.put(System.nanoTime());
+        }
+        consumer.join();
+
+        Arrays.sort(latencies);
+        System.out.println("blocking takeMin wake-up latency, "
+                + handoffs + " handoffs");
+        for (double p : new double[]{ 0.5, 0.9, 0.99, 0.999 })
+        {
+            System.out.printf("  p%-27s %10d ns%n", p * 100,
+                    latencies[(int) (p * (handoffs - 1))]);
+        }
+    }
+
+    /**
+     * Compares loading a queue with one add per item against one addAll
+     *
+     * @param label The queue being timed
+     * @param oneByOne An empty queue to load with add
+     * @param bulk An empty queue to load with addAll
+     * @param keys The keys to load
+     */
+    static <AnyType> void bulkLoad(String label,
+            DoubleEndedPriorityQueue<AnyType> oneByOne,
+            DoubleEndedPriorityQueue<AnyType> bulk, AnyType[] keys)
+    {
+        System.out.println(label + ", n = " + keys.length);
+
+        long start = System.nanoTime();
+        for (AnyType k : keys)
+        {
+            oneByOne.add(k);
+        }
+        report("add one at a time", start, keys.length);
+
+        start = System.nanoTime();
+        bulk.addAll(keys);
+        report("addAll", start, keys.length);
+    }
+
+    /**
+     * Compares draining a queue with k single deleteMin calls per tick
+     * against one deleteMin(k, out) per tick
+     *
+     * @param label The queue being timed
+     * @param single A queue holding the keys, drained one at a time
+     * @param batched A queue holding the keys, drained k at a time
+     * @param k The number of items removed per tick
+     */
+    static <AnyType> void batchDelete(String label,
+            DoubleEndedPriorityQueue<AnyType> single,
+            DoubleEndedPriorityQueue<AnyType> batched, int k)
+    {
+        System.out.println(label + ", k = " + k);
+        ArrayList<AnyType> out = new ArrayList<>(k);
+        int ops = 0;
+
+        long start = System.nanoTime();
+        while (!single.isEmpty())
+        {
+            out.clear();
+            for (int i = 0; i < k && !single.isEmpty(); i++, ops++)
+            {
+                out.add(single.deleteMin());
+            }
+        }
+        report("k x deleteMin()", start, ops);
+
+        ops = 0;
+        start = System.nanoTime();
+        while (!batched.isEmpty())
+        {
+            out.clear();
+            ops += batched.deleteMin(k, out);
+        }
+        report("deleteMin(k, out)", start, ops);
+    }
+
+    /**
+     * Natural ordering that counts how many times it is called
+     */
+    static class CountingComparator implements Comparator<Integer>
+    {
+        long count = 0;
+
+        @Override
+        public int compare(Integer lhs, Integer rhs)
+        {
+            ++count;
+            return lhs.compareTo(rhs);
+        }
+    }
+
+    /**
+     * Prints the comparisons each add costs. The tree should cost one per
+     * level it walks (about log2 n when balanced) and the list one per node
+     * it steps over in its express lanes
+     *
+     * @param n The number of random keys to add
+     */
+    static void countComparisons(int n)
+    {
+        Integer[] keys = keys("random", n);
+        System.out.printf("comparisons per add, random, n = %d"
+                + " (log2 n = %.1f)%n", n, Math.log(n) / Math.log(2));
+
+        CountingComparator c = new CountingComparator();
+        DoubleEndedPriorityQueue<Integer> q
+                = new TreeDoubleEndedPriorityQueue<>(c, true);
+        for (Integer k : keys)
+        {
+            q.add(k);
+        }
+        System.out.printf("  %-28s %10.2f%n", "balanced tree",
+                (double) c.count / n);
+
+        c = new CountingComparator();
+        q = new TreeDoubleEndedPriorityQueue<>(c);
+        for (Integer k : keys)
+        {
+            q.add(k);
+        }
+        System.out.printf("  %-28s %10.2f%n", "unbalanced tree",
+                (double) c.count / n);
+
+        c = new CountingComparator();
+        q = new ListDoubleEndedPriorityQueue<>(c);
+        for (Integer k : keys)
+        {
+            q.add(k);
+        }
+        System.out.printf("  %-28s %10.2f%n", "skip list indexed list",
+                (double) c.count / n);
+    }
+
+    /**
+     * Times random adds to the list for several express lane probabilities
+     * and reports the index links each element carries
+     *
+     * @param n The number of random keys to add
+     */
+    static void skipListIndex(int n)
+    {
+        Integer[] keys = keys("random", n);
+
+        for (double p : new double[]{ 0.5, 0.25, 0.125 })
+        {
+            System.out.println("skip list indexed list, random, p = " + p
+                    + ", n = " + n);
+            ListDoubleEndedPriorityQueue<Integer> q
+                    = new ListDoubleEndedPriorityQueue<>(null, p);
+
+            long start = System.nanoTime();
+            for (Integer k : keys)
+            {
+                q.add(k);
+            }
+            report("add", start, n);
+            System.out.printf("  %-28s %10.2f%n", "index links per element",
+                    (double) q.indexLinks() / n);
+        }
+    }
+
+    /**
+     * Adds keys drawn from a handful of priority levels to a balanced tree
+     * with and without duplicate counting, reporting the time and the heap
+     * in use once everything is in
+     *
+     * @param n The number of keys to add
+     */
+    static void skewedDuplicates(int n)
+    {
+        Integer[] keys = new Integer[n];
+        Random r = new Random(1);
+        for (int i = 0; i < n; i++)
+        {
+            keys[i] = r.nextInt(16);
+        }
+
+        for (boolean counting : new boolean[]{ false, true })
+        {
+            System.out.println("balanced tree, 16 priority levels, counting = "
+                    + counting + ", n = " + n);
+            Runtime rt = Runtime.getRuntime();
+            System.gc();
+            long before = rt.totalMemory() - rt.freeMemory();
+
+            TreeDoubleEndedPriorityQueue<Integer> q
+                    = new TreeDoubleEndedPriorityQueue<>(null, true, counting);
+            long start = System.nanoTime();
+            for (Integer k : keys)
+            {
+                q.add(k);
+            }
+            report("add", start, n);
+
+            System.gc();
+            System.out.printf("  %-28s %10.2f%n", "heap bytes per element",
+                    (double) (rt.totalMemory() - rt.freeMemory() - before) / n);
+
+            start = System.nanoTime();
+            while (!q.isEmpty())
+            {
+                q.deleteMin();
+            }
+            report("deleteMin", start, n);
+        }
+    }
+
+    /**
+     * Times order statistic queries on a balanced tree of random keys
+     *
+     * @param n The number of keys in the tree
+     */
+    static void orderStatistics(int n)
+    {
+        Integer[] keys = keys("random", n);
+        TreeDoubleEndedPriorityQueue<Integer> q
+                = new TreeDoubleEndedPriorityQueue<>(true);
+        q.addAll(keys);
+        System.out.println("order statistics balanced tree, random, n = " + n);
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++)
+        {
+            sink += q.select(i);
+        }
+        report("select", start, n);
+
+        start = System.nanoTime();
+        for (Integer k : keys)
+        {
+            sink += q.rank(k);
+        }
+        report("rank", start, n);
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++)
+        {
+            sink += q.median();
+        }
+        report("median", start, n);
+
+        if (sink == 42)
+        {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Expires the oldest items of a balanced tree in steps, once by deleting
+     * them one at a time and once with removeLessThan
+     *
+     * @param n The number of keys (timestamps 0 to n - 1, added in random
+     * order)
+     * @param steps The number of cutoffs to expire up to
+     */
+    static void expire(int n, int steps)
+    {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++)
+        {
+            keys[i] = i;
+        }
+        Collections.shuffle(Arrays.asList(keys), new Random(1));
+
+        System.out.println("expire balanced tree, n = " + n + ", steps = "
+                + steps);
+        TreeDoubleEndedPriorityQueue<Integer> single
+                = new TreeDoubleEndedPriorityQueue<>(true);
+        TreeDoubleEndedPriorityQueue<Integer> ranged
+                = new TreeDoubleEndedPriorityQueue<>(true);
+        single.addAll(keys);
+        ranged.addAll(keys);
+
+        long start = System.nanoTime();
+        for (int s = 1; s <= steps; s++)
+        {
+            int cutoff = (int) ((long) n * s / steps);
+            while (!single.isEmpty() && single.findMin() < cutoff)
+            {
+                single.deleteMin();
+            }
+        }
+        report("deleteMin per item", start, n);
+
+        start = System.nanoTime();
+        for (int s = 1; s <= steps; s++)
+        {
+            ranged.removeLessThan((int) ((long) n * s / steps));
+        }
+        report("removeLessThan", start, n);
+    }
+
+    /**
+     * Times the same workload on a balanced tree used directly, through an
+     * instrumented wrapper with recording switched off, and with it on
+     *
+     * @param n The number of keys
+     */
+    static void instrumentation(int n)
+    {
+        Integer[] keys = keys("random", n);
+
+        System.out.println("plain balanced tree, random, n = " + n);
+        run(new TreeDoubleEndedPriorityQueue<Integer>(true), keys);
+
+        QueueMetrics metrics = new QueueMetrics();
+        metrics.setEnabled(false);
+        System.out.println("instrumented balanced tree (off), random, n = "
+                + n);
+        run(new InstrumentedDoubleEndedPriorityQueue<>(
+                new TreeDoubleEndedPriorityQueue<Integer>(
+                        metrics.<Integer>comparator(null), true), metrics),
+                keys);
+
+        metrics.setEnabled(true);
+        System.out.println("instrumented balanced tree (on), random, n = "
+                + n);
+        InstrumentedDoubleEndedPriorityQueue<Integer> q
+                = new InstrumentedDoubleEndedPriorityQueue<>(
+                        new TreeDoubleEndedPriorityQueue<Integer>(
+                                metrics.<Integer>comparator(null), true),
+                        metrics);
+        run(q, keys);
+        System.out.println(q.snapshot(true));
+    }
+
+    /**
+     * Compares rebuilding a balanced tree by replaying every add against
+     * writing it to a snapshot file and reading it back
+     *
+     * @param n The number of keys in the tree
+     * @throws IOException If the temp file cannot be written or read
+     */
+    static void snapshot(int n) throws IOException
+    {
+        Integer[] keys = keys("random", n);
+        TreeDoubleEndedPriorityQueue<Integer> q
+                = new TreeDoubleEndedPriorityQueue<>(true);
+        q.addAll(keys);
+        System.out.println("snapshot balanced tree, random, n = " + n);
+
+        TreeDoubleEndedPriorityQueue<Integer> replayed
+                = new TreeDoubleEndedPriorityQueue<>(true);
+        long start = System.nanoTime();
+        for (Integer k : keys)
+        {
+            replayed.add(k);
+        }
+        report("replay add", start, n);
+
+        Path file = Files.createTempFile("depq", ".snapshot");
+        try
+        {
+            start = System.nanoTime();
+            q.writeSnapshot(file, SnapshotCodec.INTEGER);
+            report("writeSnapshot", start, n);
+
+            TreeDoubleEndedPriorityQueue<Integer> loaded
+                    = new TreeDoubleEndedPriorityQueue<>(true);
+            start = System.nanoTime();
+            loaded.readSnapshot(file, SnapshotCodec.INTEGER);
+            report("readSnapshot", start, n);
+
+            if (loaded.size() != n || !loaded.findMin().equals(q.findMin())
+                    || !loaded.findMax().equals(q.findMax()))
+            {
+                throw new IllegalStateException("Snapshot did not round trip");
+            }
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException,
+            IOException
+    {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_N;
+
+        for (String order : new String[]{ "sorted", "reverse", "random" })
+        {
+            Integer[] keys = keys(order, n);
+
+            System.out.println("balanced tree, " + order + ", n = " + n);
+            run(new TreeDoubleEndedPriorityQueue<Integer>(true), keys);
+
+            System.out.println("min-max heap, " + order + ", n = " + n);
+            run(new MinMaxHeapDoubleEndedPriorityQueue<Integer>(), keys);
+
+            System.out.println("min-max heap (bulk build), " + order
+                    + ", n = " + n);
+            long start = System.nanoTime();
+            MinMaxHeapDoubleEndedPriorityQueue<Integer> h
+                    = new MinMaxHeapDoubleEndedPriorityQueue<>(keys);
+            report("build", start, keys.length);
+            drain(h);
+
+            System.out.println("interval heap, " + order + ", n = " + n);
+            run(new IntervalHeapDoubleEndedPriorityQueue<Integer>(), keys);
+
+            System.out.println("interval heap (bulk build), " + order
+                    + ", n = " + n);
+            start = System.nanoTime();
+            IntervalHeapDoubleEndedPriorityQueue<Integer> ih
+                    = new IntervalHeapDoubleEndedPriorityQueue<>(keys);
+            report("build", start, keys.length);
+            drain(ih);
+        }
+
+        for (String order : new String[]{ "sorted", "random" })
+        {
+            Integer[] keys = keys(order, n);
+            bulkLoad("bulk load balanced tree, " + order,
+                    new TreeDoubleEndedPriorityQueue<Integer>(true),
+                    new TreeDoubleEndedPriorityQueue<Integer>(true), keys);
+            bulkLoad("bulk load min-max heap, " + order,
+                    new MinMaxHeapDoubleEndedPriorityQueue<Integer>(),
+                    new MinMaxHeapDoubleEndedPriorityQueue<Integer>(), keys);
+            bulkLoad("bulk load interval heap, " + order,
+                    new IntervalHeapDoubleEndedPriorityQueue<Integer>(),
+                    new IntervalHeapDoubleEndedPriorityQueue<Integer>(), keys);
+            bulkLoad("bulk load list, " + order,
+                    new ListDoubleEndedPriorityQueue<Integer>(),
+                    new ListDoubleEndedPriorityQueue<Integer>(), keys);
+        }
+
+        Integer[] random = keys("random", n);
+        for (int k : new int[]{ 10, 100, 1000 })
+        {
+            DoubleEndedPriorityQueue<Integer> single
+                    = new TreeDoubleEndedPriorityQueue<>(true);
+            DoubleEndedPriorityQueue<Integer> batched
+                    = new TreeDoubleEndedPriorityQueue<>(true);
+            single.addAll(random);
+            batched.addAll(random);
+            batchDelete("batched delete balanced tree, n = " + n, single,
+                    batched, k);
+
+            single = new ListDoubleEndedPriorityQueue<>();
+            batched = new ListDoubleEndedPriorityQueue<>();
+            single.addAll(random);
+            batched.addAll(random);
+            batchDelete("batched delete list, n = " + n, single, batched, k);
+        }
+
+        countComparisons(n);
+        skipListIndex(n);
+        skewedDuplicates(n);
+        orderStatistics(n);
+        expire(n, 100);
+        snapshot(n);
+        instrumentation(n);
+        comparePrimitive(n);
+        compareOffHeap(n);
+        compareConcurrent(Math.min(n, 1000000));
+        wakeUpLatency(10000);
+    }
+}
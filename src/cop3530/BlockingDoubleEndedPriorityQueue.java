@@ -0,0 +1,26 @@
+package cop3530;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Double-Ended priority queue that can be shared between producer and
+ * consumer threads. Consumers wait for data instead of getting an
+ * UnderflowException, and producers wait for room when the queue is bounded
+ * 
+ * @author David Romero PID: 3624439
+ */
+public interface BlockingDoubleEndedPriorityQueue<AnyType> extends
+        DoubleEndedPriorityQueue<AnyType>
+{
+    void put( AnyType x ) throws InterruptedException;
+    boolean offer( AnyType x, long timeout, TimeUnit unit )
+            throws InterruptedException;
+    AnyType takeMin( ) throws InterruptedException;
+    AnyType takeMax( ) throws InterruptedException;
+    AnyType pollMin( long timeout, TimeUnit unit ) throws InterruptedException;
+    AnyType pollMax( long timeout, TimeUnit unit ) throws InterruptedException;
+    int drainMinTo( Collection<? super AnyType> c, int maxElements );
+    int drainMaxTo( Collection<? super AnyType> c, int maxElements );
+    int remainingCapacity( );
+}
@@ -0,0 +1,256 @@
+package cop3530;
+
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/**
+ * Keeps only the best K items of another double ended priority queue. When
+ * the queue is full, adding an item that beats the current boundary evicts
+ * the boundary from the opposite end in the same operation, and an item that
+ * does not beat it is turned away without touching the queue. Evicted and
+ * turned away items are reported to an optional callback. Items are compared
+ * with the wrapped queue's own comparator, and the size is the queue's own,
+ * so a queue that already holds items can be bounded too
+ *
+ * @author David Romero PID: 3624439
+ */
+public class BoundedDoubleEndedPriorityQueue<AnyType> implements
+        DoubleEndedPriorityQueue<AnyType>
+{
+    private final DoubleEndedPriorityQueue<AnyType> q;//The queue being bounded
+    private final int capacity;             //Most items that are kept
+    private final boolean keepLargest;      //True keeps the top K
+    private final Comparator<? super AnyType> cmp;//The queue's comparator
+    private final Consumer<? super AnyType> evicted;//Told about lost items
+
+    /**
+     * Bounds a queue
+     *
+     * @param q The queue to bound, holding at most capacity items
+     * @param capacity The most items to keep
+     * @param keepLargest True to keep the largest items (evict from the min
+     * end), false to keep the smallest (evict from the max end)
+     */
+    public BoundedDoubleEndedPriorityQueue(DoubleEndedPriorityQueue<AnyType> q,
+            int capacity, boolean keepLargest)
+    {
+        this(q, capacity, keepLargest, null);
+    }
+
+    /**
+     * Bounds a queue and reports items that are evicted or turned away
+     *
+     * @param q The queue to bound, holding at most capacity items
+     * @param capacity The most items to keep
+     * @param keepLargest True to keep the largest items (evict from the min
+     * end), false to keep the smallest (evict from the max end)
+     * @param evicted Called with every item that is evicted or turned away,
+     * may be null
+     * @throws IllegalArgumentException If capacity is not positive or the
+     * queue already holds more than capacity items
+     */
+    public BoundedDoubleEndedPriorityQueue(DoubleEndedPriorityQueue<AnyType> q,
+            int capacity, boolean keepLargest,
+            Consumer<? super AnyType> evicted)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (q.size() > capacity)
+        {
+            throw new IllegalArgumentException("Queue holds " + q.size()
+                    + " items, more than the capacity " + capacity);
+        }
+
+        this.q = q;
+        this.capacity = capacity;
+        this.keepLargest = keepLargest;
+        this.cmp = q.comparator();
+        this.evicted = evicted;
+    }
+
+    /**
+     * Compares two pieces of data with the comparator of the wrapped queue
+     *
+     * @param lhs The first piece data being used to compare
+     * @param rhs The second piece of data being used to compare
+     * @return -1 if lhs is less than rhs, 1 if it's greater, 0 if it is equal
+     */
+    public int myCompare(AnyType lhs, AnyType rhs)
+    {
+        return cmp.compare(lhs, rhs);
+    }
+
+    /**
+     * Returns the comparator of the wrapped queue
+     *
+     * @return The comparator
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return cmp;
+    }
+
+    /**
+     * Empties the queue
+     */
+    @Override
+    public void makeEmpty()
+    {
+        q.makeEmpty();
+    }
+
+    /**
+     * Adds data to the queue, evicting or turning away an item if it is full
+     *
+     * @param x The data to be added
+     */
+    @Override
+    public void add(AnyType x)
+    {
+        offer(x);
+    }
+
+    /**
+     * Adds data to the queue if there is room or it beats the boundary item
+     * at the end that gets evicted. Ties with the boundary are turned away
+     *
+     * @param x The data to be added
+     * @return True if the data was kept, false if it was turned away
+     */
+    public boolean offer(AnyType x)
+    {
+        if (q.size() < capacity)
+        {
+            q.add(x);
+            return true;
+        }
+
+        //Full: x has to beat the item at the end we evict from
+        AnyType boundary = keepLargest ? q.findMin() : q.findMax();
+        int c = myCompare(x, boundary);
+        if (keepLargest ? c <= 0 : c >= 0)
+        {
+            report(x);
+            return false;
+        }
+
+        AnyType rem = keepLargest ? q.deleteMin() : q.deleteMax();
+        q.add(x);
+        report(rem);
+        return true;
+    }
+
+    /**
+     * Deletes the smallest value
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        return q.deleteMin();
+    }
+
+    /**
+     * Deletes the largest value
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        return q.deleteMax();
+    }
+
+    /**
+     * Finds the smallest value
+     *
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        return q.findMin();
+    }
+
+    /**
+     * Finds the largest value
+     *
+     * @return The largest value
+     */
+    @Override
+    public AnyType findMax()
+    {
+        return q.findMax();
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return q.isEmpty();
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return q.size();
+    }
+
+    /**
+     * Returns the number of distinct values in the queue
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        return q.distinctSize();
+    }
+
+    /**
+     * Checks if the queue holds as many items as it can
+     *
+     * @return Boolean showing whether the queue is full or not
+     */
+    public boolean isFull()
+    {
+        return q.size() >= capacity;
+    }
+
+    /**
+     * Prints the queue
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        return q.toString();
+    }
+
+    /**
+     * Hands an item that did not make the cut to the callback
+     *
+     * @param x The evicted or turned away item
+     */
+    private void report(AnyType x)
+    {
+        if (evicted != null)
+        {
+            evicted.accept(x);
+        }
+    }
+}
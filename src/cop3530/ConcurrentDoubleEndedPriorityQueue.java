@@ -0,0 +1,321 @@
+package cop3530;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a thread-safe double ended priority queue on top of a
+ * lock-free skip list. Producers can add and consumers can delete from both
+ * ends at the same time without a global lock. Duplicates are kept apart by
+ * tagging every item with an insertion sequence number
+ *
+ * @author David Romero PID: 3624439
+ */
+public class ConcurrentDoubleEndedPriorityQueue<AnyType> implements
+        DoubleEndedPriorityQueue<AnyType>
+{
+    private final Comparator<? super AnyType> cmp;//Comparator for the data
+    private final ConcurrentSkipListSet<Entry<AnyType>> set;//The items
+    private final AtomicLong sequence = new AtomicLong();//Tie breaker
+    private final AtomicInteger count = new AtomicInteger();//Number of items
+
+    /**
+     * An item in the skip list
+     *
+     * @param <AnyType> Generic class; entry can take any type of data
+     */
+    private static class Entry<AnyType>
+    {
+        private final AnyType data;         //The data
+        private final long seq;             //Order the data was added in
+
+        /**
+         * Creates an entry
+         *
+         * @param d The data
+         * @param s The sequence number
+         */
+        public Entry(AnyType d, long s)
+        {
+            data = d;
+            seq = s;
+        }
+    }
+
+    /**
+     * Constructs an empty queue
+     */
+    public ConcurrentDoubleEndedPriorityQueue()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs an empty queue that accepts a different comparator
+     *
+     * @param c Comparator that will be used
+     */
+    public ConcurrentDoubleEndedPriorityQueue(Comparator<? super AnyType> c)
+    {
+        cmp = NaturalOrder.orNatural(c);
+        set = new ConcurrentSkipListSet<>(new Comparator<Entry<AnyType>>()
+        {
+            @Override
+            public int compare(Entry<AnyType> lhs, Entry<AnyType> rhs)
+            {
+                int result = myCompare(lhs.data, rhs.data);
+                return result != 0
+                        ? result : Long.compare(lhs.seq, rhs.seq);
+            }
+        });
+    }
+
+    /**
+     * Compares two pieces of data with the comparator picked at construction
+     * (natural ordering if none was given).
+     *
+     * @param lhs The first piece data being used to compare
+     * @param rhs The second piece of data being used to compare
+     * @return -1 if lhs is less than rhs, 1 if it's greater, 0 if it is equal
+     */
+    public int myCompare(AnyType lhs, AnyType rhs)
+    {
+        return cmp.compare(lhs, rhs);
+    }
+
+    /**
+     * Returns the comparator that orders the queue
+     *
+     * @return The comparator, natural ordering if none was given
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return cmp;
+    }
+
+    /**
+     * Empties the queue. Items added by other threads while this runs may or
+     * may not be removed
+     */
+    @Override
+    public void makeEmpty()
+    {
+        while (set.pollFirst() != null)
+        {
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * Adds data to the queue
+     *
+     * @param x The data to be added
+     */
+    @Override
+    public void add(AnyType x)
+    {
+        set.add(new Entry<>(x, sequence.getAndIncrement()));
+        count.incrementAndGet();
+    }
+
+    /**
+     * Deletes the smallest value in the queue
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        Entry<AnyType> e = set.pollFirst();
+        if (e == null)
+        {
+            throw new UnderflowException();
+        }
+        count.decrementAndGet();
+
+        return e.data;
+    }
+
+    /**
+     * Deletes the largest value in the queue
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        Entry<AnyType> e = set.pollLast();
+        if (e == null)
+        {
+            throw new UnderflowException();
+        }
+        count.decrementAndGet();
+
+        return e.data;
+    }
+
+    /**
+     * Deletes up to k of the smallest values. The batch is only weakly
+     * consistent: each value is polled on its own, so deletes by other
+     * threads can interleave with it and it need not be the k smallest values
+     * at any one moment. It stops early instead of failing if other
+     * consumers empty the queue first. BlockingDoubleEndedPriorityQueue
+     * takes a batch atomically under its lock
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMin(int k, Collection<? super AnyType> out)
+    {
+        int removed = 0;
+        Entry<AnyType> e;
+        for (; removed < k && (e = set.pollFirst()) != null; removed++)
+        {
+            count.decrementAndGet();
+            out.add(e.data);
+        }
+        return removed;
+    }
+
+    /**
+     * Deletes up to k of the largest values. The batch is only weakly
+     * consistent: each value is polled on its own, so deletes by other
+     * threads can interleave with it and it need not be the k largest values
+     * at any one moment. It stops early instead of failing if other
+     * consumers empty the queue first. BlockingDoubleEndedPriorityQueue
+     * takes a batch atomically under its lock
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMax(int k, Collection<? super AnyType> out)
+    {
+        int removed = 0;
+        Entry<AnyType> e;
+        for (; removed < k && (e = set.pollLast()) != null; removed++)
+        {
+            count.decrementAndGet();
+            out.add(e.data);
+        }
+        return removed;
+    }
+
+    /**
+     * Finds the smallest value in the queue
+     *
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        try
+        {
+            return set.first().data;
+        }
+        catch (NoSuchElementException e)
+        {
+            throw new UnderflowException();
+        }
+    }
+
+    /**
+     * Finds the largest value in the queue
+     *
+     * @return The largest value
+     */
+    @Override
+    public AnyType findMax()
+    {
+        try
+        {
+            return set.last().data;
+        }
+        catch (NoSuchElementException e)
+        {
+            throw new UnderflowException();
+        }
+    }
+
+    /**
+     * Returns the number of items in the queue. The skip list's own size
+     * walks every item, so a counter is kept next to it instead. While other
+     * threads are adding or deleting the result may be briefly out of date
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return Math.max(count.get(), 0);
+    }
+
+    /**
+     * Returns the number of distinct values in the queue. Walks the skip
+     * list, so it takes O(n) time and is a snapshot that may miss concurrent
+     * changes
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        int runs = 0;
+        Entry<AnyType> prev = null;
+
+        for (Entry<AnyType> e : set)
+        {
+            if (prev == null || myCompare(prev.data, e.data) != 0)
+            {
+                ++runs;
+            }
+            prev = e;
+        }
+        return runs;
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return set.isEmpty();
+    }
+
+    /**
+     * Prints the queue. The result is a snapshot that may miss concurrent
+     * changes
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        if (isEmpty())
+        {
+            return "[]";
+        }
+
+        StringBuilder sb = new StringBuilder("[ ");
+
+        for (Entry<AnyType> e : set)
+        {
+            sb.append(e.data);
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+}
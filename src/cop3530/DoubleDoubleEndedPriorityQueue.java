@@ -0,0 +1,177 @@
+package cop3530;
+
+/**
+ * Double ended priority queue of primitive doubles. Each value is mapped to a
+ * long key whose signed order is the order of Double.compare, and the keys
+ * are kept in a LongDoubleEndedPriorityQueue, so nothing is boxed and no
+ * comparator is called. As with Double.compare, -0.0 is smaller than 0.0 and
+ * NaN is larger than every other value, positive infinity included. Every
+ * NaN is stored as the canonical Double.NaN
+ *
+ * @author David Romero PID: 3624439
+ */
+public class DoubleDoubleEndedPriorityQueue
+{
+    private final LongDoubleEndedPriorityQueue keys;//The mapped values
+
+    /**
+     * Constructs an empty queue
+     */
+    public DoubleDoubleEndedPriorityQueue()
+    {
+        keys = new LongDoubleEndedPriorityQueue();
+    }
+
+    /**
+     * Constructs a queue from an array of values in linear time
+     *
+     * @param items The values to put in the queue
+     */
+    public DoubleDoubleEndedPriorityQueue(double[] items)
+    {
+        long[] k = new long[items.length];
+        for (int i = 0; i < items.length; i++)
+        {
+            k[i] = toKey(items[i]);
+        }
+        keys = new LongDoubleEndedPriorityQueue(k);
+    }
+
+    /**
+     * Empties the queue
+     */
+    public void makeEmpty()
+    {
+        keys.makeEmpty();
+    }
+
+    /**
+     * Adds a value to the queue
+     *
+     * @param x The value to be added
+     */
+    public void add(double x)
+    {
+        keys.add(toKey(x));
+    }
+
+    /**
+     * Deletes the smallest value
+     *
+     * @return The value removed
+     */
+    public double deleteMin()
+    {
+        return fromKey(keys.deleteMin());
+    }
+
+    /**
+     * Deletes the largest value
+     *
+     * @return The value removed
+     */
+    public double deleteMax()
+    {
+        return fromKey(keys.deleteMax());
+    }
+
+    /**
+     * Finds the smallest value
+     *
+     * @return The smallest value
+     */
+    public double findMin()
+    {
+        return fromKey(keys.findMin());
+    }
+
+    /**
+     * Finds the largest value
+     *
+     * @return The largest value
+     */
+    public double findMax()
+    {
+        return fromKey(keys.findMax());
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return The number of items
+     */
+    public int size()
+    {
+        return keys.size();
+    }
+
+    /**
+     * Returns the number of distinct values in the queue, where -0.0 and 0.0
+     * are distinct and all NaNs are one value. It takes O(n log n) time
+     *
+     * @return The number of distinct values
+     */
+    public int distinctSize()
+    {
+        return keys.distinctSize();
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    public boolean isEmpty()
+    {
+        return keys.isEmpty();
+    }
+
+    /**
+     * Prints the queue in sorted order
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        if (isEmpty())
+        {
+            return "[]";
+        }
+
+        StringBuilder sb = new StringBuilder("[ ");
+        for (long k : keys.sorted())
+        {
+            sb.append(fromKey(k));
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+
+    /**
+     * Maps a double to a long key. Non-negative values keep their bits; for
+     * negative ones every bit but the sign is flipped, so a larger magnitude
+     * gives a smaller key
+     *
+     * @param x The value
+     * @return The key
+     */
+    static long toKey(double x)
+    {
+        long bits = Double.doubleToLongBits(x);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Maps a key made by toKey back to its double
+     *
+     * @param k The key
+     * @return The value
+     */
+    static double fromKey(long k)
+    {
+        return Double.longBitsToDouble(k ^ ((k >> 63) & Long.MAX_VALUE));
+    }
+}
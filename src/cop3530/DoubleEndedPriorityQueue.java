@@ -1,5 +1,8 @@
 package cop3530;
 
+import java.util.Collection;
+import java.util.Comparator;
+
 /**
  * Double-Ended priority queue interface. Used for both the list and tree
  * implementations
@@ -15,4 +18,85 @@ public interface DoubleEndedPriorityQueue<AnyType>
     AnyType findMin( );
     AnyType findMax( );
     boolean isEmpty( );
+
+    /**
+     * Returns the number of items in the queue, every duplicate included
+     * 
+     * @return The number of items
+     */
+    int size( );
+
+    /**
+     * Returns the number of distinct values in the queue, where items that
+     * compare equal count once
+     * 
+     * @return The number of distinct values
+     */
+    int distinctSize( );
+
+    /**
+     * Returns the comparator that orders the queue. Queues built without one
+     * return natural ordering rather than null
+     * 
+     * @return The comparator
+     */
+    Comparator<? super AnyType> comparator( );
+
+    /**
+     * Adds every item in a collection. Implementations override this to
+     * build their structure in one pass instead of one add at a time
+     * 
+     * @param items The items to be added
+     */
+    default void addAll( Collection<? extends AnyType> items )
+    {
+        for( AnyType x : items )
+            add( x );
+    }
+
+    /**
+     * Adds every item in an array. Implementations override this to build
+     * their structure in one pass instead of one add at a time
+     * 
+     * @param items The items to be added
+     */
+    default void addAll( AnyType[] items )
+    {
+        for( AnyType x : items )
+            add( x );
+    }
+
+    /**
+     * Deletes up to k of the smallest values, adding them to a collection in
+     * ascending order. Implementations override this to remove them in one
+     * sweep instead of k separate deletes
+     * 
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    default int deleteMin( int k, Collection<? super AnyType> out )
+    {
+        int removed = 0;
+        for( ; removed < k && !isEmpty( ); removed++ )
+            out.add( deleteMin( ) );
+        return removed;
+    }
+
+    /**
+     * Deletes up to k of the largest values, adding them to a collection in
+     * descending order. Implementations override this to remove them in one
+     * sweep instead of k separate deletes
+     * 
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    default int deleteMax( int k, Collection<? super AnyType> out )
+    {
+        int removed = 0;
+        for( ; removed < k && !isEmpty( ); removed++ )
+            out.add( deleteMax( ) );
+        return removed;
+    }
 }
@@ -0,0 +1,385 @@
+package cop3530;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Wraps a double ended priority queue and records every operation in a
+ * QueueMetrics: how many ran, how long each took, and how many comparisons
+ * the queue made. snapshot(true) adds the shape of the queue, such as the
+ * tree height or the longest run of duplicates, so a slow operation can be
+ * traced to queue depth, tree depth or comparator cost. While the metrics
+ * are switched off every call goes straight to the queue
+ *
+ * Comparisons can only be counted if the wrapped queue was built with
+ * metrics.comparator(c). A queue built any other way compares without the
+ * wrapper seeing it, and its snapshots report comparisons as -1 rather
+ * than 0. The wrapped queue should only be used through the wrapper
+ *
+ * @author David Romero PID: 3624439
+ */
+public class InstrumentedDoubleEndedPriorityQueue<AnyType> implements
+        DoubleEndedPriorityQueue<AnyType>
+{
+    private final DoubleEndedPriorityQueue<AnyType> q;//The queue measured
+    private final QueueMetrics metrics;     //Where operations are recorded
+    private final boolean counted;          //Whether comparisons are counted
+
+    /**
+     * Wraps a queue. Build it with metrics.comparator(c) to also count
+     * comparisons; whether it was is checked here through q.comparator()
+     *
+     * @param q The queue to measure
+     * @param metrics Where operations are recorded
+     */
+    public InstrumentedDoubleEndedPriorityQueue(
+            DoubleEndedPriorityQueue<AnyType> q, QueueMetrics metrics)
+    {
+        this.q = q;
+        this.metrics = metrics;
+        this.counted = metrics.counts(q.comparator());
+    }
+
+    /**
+     * Returns the metrics operations are recorded in
+     *
+     * @return The metrics
+     */
+    public QueueMetrics metrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Checks whether comparisons are being counted
+     *
+     * @return True if the queue was built with metrics.comparator(c)
+     */
+    public boolean countsComparisons()
+    {
+        return counted;
+    }
+
+    /**
+     * Copies the metrics and the size of the queue, without its shape. Takes
+     * O(1) time besides copying the histograms, so it is safe to sample
+     * while the queue is in use
+     *
+     * @return The snapshot
+     */
+    public QueueMetrics.Snapshot snapshot()
+    {
+        return snapshot(false);
+    }
+
+    /**
+     * Copies the metrics and optionally takes the shape of the queue. The
+     * shape includes the number of distinct values, which sorts a copy of a
+     * heap in O(n log n) time, and the longest run of duplicates and the
+     * height of an unbalanced tree, which walk the queue in O(n) time.
+     * Values that are not taken are -1
+     *
+     * @param shape True to also take the shape
+     * @return The snapshot
+     */
+    public QueueMetrics.Snapshot snapshot(boolean shape)
+    {
+        int distinct = -1;
+        int height = -1;
+        int maxBucket = -1;
+        int lastScan = -1;
+
+        if (q instanceof ListDoubleEndedPriorityQueue)
+        {
+            lastScan = ((ListDoubleEndedPriorityQueue<AnyType>) q)
+                    .lastScanLength();
+        }
+
+        if (!shape)
+        {
+            return new QueueMetrics.Snapshot(metrics, counted, q.size(),
+                    distinct, height, maxBucket, lastScan);
+        }
+
+        distinct = q.distinctSize();
+        if (q instanceof TreeDoubleEndedPriorityQueue)
+        {
+            TreeDoubleEndedPriorityQueue<AnyType> t
+                    = (TreeDoubleEndedPriorityQueue<AnyType>) q;
+            height = t.height();
+            maxBucket = t.maxBucketLength();
+        }
+        else if (q instanceof ListDoubleEndedPriorityQueue)
+        {
+            ListDoubleEndedPriorityQueue<AnyType> l
+                    = (ListDoubleEndedPriorityQueue<AnyType>) q;
+            maxBucket = l.maxRunLength();
+        }
+
+        return new QueueMetrics.Snapshot(metrics, counted, q.size(),
+                distinct, height, maxBucket, lastScan);
+    }
+
+    /**
+     * Empties the queue
+     */
+    @Override
+    public void makeEmpty()
+    {
+        if (!metrics.isEnabled())
+        {
+            q.makeEmpty();
+            return;
+        }
+
+        long start = System.nanoTime();
+        q.makeEmpty();
+        metrics.record(QueueMetrics.Operation.MAKE_EMPTY, 1,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Adds data to the queue
+     *
+     * @param x The data to be added
+     */
+    @Override
+    public void add(AnyType x)
+    {
+        if (!metrics.isEnabled())
+        {
+            q.add(x);
+            return;
+        }
+
+        long start = System.nanoTime();
+        q.add(x);
+        metrics.record(QueueMetrics.Operation.ADD, 1,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Adds every item in a collection in one call to the queue. Every item
+     * is counted under ADD_ALL, with one latency sample for the whole batch
+     *
+     * @param items The items to be added
+     */
+    @Override
+    public void addAll(Collection<? extends AnyType> items)
+    {
+        if (!metrics.isEnabled())
+        {
+            q.addAll(items);
+            return;
+        }
+
+        long start = System.nanoTime();
+        q.addAll(items);
+        metrics.record(QueueMetrics.Operation.ADD_ALL, items.size(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Adds every item in an array in one call to the queue. Every item is
+     * counted under ADD_ALL, with one latency sample for the whole batch
+     *
+     * @param items The items to be added
+     */
+    @Override
+    public void addAll(AnyType[] items)
+    {
+        if (!metrics.isEnabled())
+        {
+            q.addAll(items);
+            return;
+        }
+
+        long start = System.nanoTime();
+        q.addAll(items);
+        metrics.record(QueueMetrics.Operation.ADD_ALL, items.length,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Deletes the smallest value
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        if (!metrics.isEnabled())
+        {
+            return q.deleteMin();
+        }
+
+        long start = System.nanoTime();
+        AnyType rem = q.deleteMin();
+        metrics.record(QueueMetrics.Operation.DELETE_MIN, 1,
+                System.nanoTime() - start);
+        return rem;
+    }
+
+    /**
+     * Deletes the largest value
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        if (!metrics.isEnabled())
+        {
+            return q.deleteMax();
+        }
+
+        long start = System.nanoTime();
+        AnyType rem = q.deleteMax();
+        metrics.record(QueueMetrics.Operation.DELETE_MAX, 1,
+                System.nanoTime() - start);
+        return rem;
+    }
+
+    /**
+     * Deletes up to k of the smallest values in one call to the queue. Every
+     * value is counted under DELETE_MIN_BATCH, with one latency sample for
+     * the whole batch
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMin(int k, Collection<? super AnyType> out)
+    {
+        if (!metrics.isEnabled())
+        {
+            return q.deleteMin(k, out);
+        }
+
+        long start = System.nanoTime();
+        int removed = q.deleteMin(k, out);
+        metrics.record(QueueMetrics.Operation.DELETE_MIN_BATCH, removed,
+                System.nanoTime() - start);
+        return removed;
+    }
+
+    /**
+     * Deletes up to k of the largest values in one call to the queue. Every
+     * value is counted under DELETE_MAX_BATCH, with one latency sample for
+     * the whole batch
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMax(int k, Collection<? super AnyType> out)
+    {
+        if (!metrics.isEnabled())
+        {
+            return q.deleteMax(k, out);
+        }
+
+        long start = System.nanoTime();
+        int removed = q.deleteMax(k, out);
+        metrics.record(QueueMetrics.Operation.DELETE_MAX_BATCH, removed,
+                System.nanoTime() - start);
+        return removed;
+    }
+
+    /**
+     * Finds the smallest value
+     *
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        if (!metrics.isEnabled())
+        {
+            return q.findMin();
+        }
+
+        long start = System.nanoTime();
+        AnyType min = q.findMin();
+        metrics.record(QueueMetrics.Operation.FIND_MIN, 1,
+                System.nanoTime() - start);
+        return min;
+    }
+
+    /**
+     * Finds the largest value
+     *
+     * @return The largest value
+     */
+    @Override
+    public AnyType findMax()
+    {
+        if (!metrics.isEnabled())
+        {
+            return q.findMax();
+        }
+
+        long start = System.nanoTime();
+        AnyType max = q.findMax();
+        metrics.record(QueueMetrics.Operation.FIND_MAX, 1,
+                System.nanoTime() - start);
+        return max;
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return q.isEmpty();
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return q.size();
+    }
+
+    /**
+     * Returns the number of distinct values in the queue
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        return q.distinctSize();
+    }
+
+    /**
+     * Returns the comparator of the queue
+     *
+     * @return The comparator
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return q.comparator();
+    }
+
+    /**
+     * Prints the queue
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        return q.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package cop3530;
+
+/**
+ * Double ended priority queue of primitive ints. Each value is widened to a
+ * long and kept in a LongDoubleEndedPriorityQueue, so nothing is boxed and no
+ * comparator is called. Widening keeps the order, but each value takes eight
+ * bytes rather than four
+ *
+ * @author David Romero PID: 3624439
+ */
+public class IntDoubleEndedPriorityQueue
+{
+    private final LongDoubleEndedPriorityQueue keys;//The widened values
+
+    /**
+     * Constructs an empty queue
+     */
+    public IntDoubleEndedPriorityQueue()
+    {
+        keys = new LongDoubleEndedPriorityQueue();
+    }
+
+    /**
+     * Constructs a queue from an array of values in linear time
+     *
+     * @param items The values to put in the queue
+     */
+    public IntDoubleEndedPriorityQueue(int[] items)
+    {
+        long[] k = new long[items.length];
+        for (int i = 0; i < items.length; i++)
+        {
+            k[i] = items[i];
+        }
+        keys = new LongDoubleEndedPriorityQueue(k);
+    }
+
+    /**
+     * Empties the queue
+     */
+    public void makeEmpty()
+    {
+        keys.makeEmpty();
+    }
+
+    /**
+     * Adds a value to the queue
+     *
+     * @param x The value to be added
+     */
+    public void add(int x)
+    {
+        keys.add(x);
+    }
+
+    /**
+     * Deletes the smallest value
+     *
+     * @return The value removed
+     */
+    public int deleteMin()
+    {
+        return (int) keys.deleteMin();
+    }
+
+    /**
+     * Deletes the largest value
+     *
+     * @return The value removed
+     */
+    public int deleteMax()
+    {
+        return (int) keys.deleteMax();
+    }
+
+    /**
+     * Finds the smallest value
+     *
+     * @return The smallest value
+     */
+    public int findMin()
+    {
+        return (int) keys.findMin();
+    }
+
+    /**
+     * Finds the largest value
+     *
+     * @return The largest value
+     */
+    public int findMax()
+    {
+        return (int) keys.findMax();
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return The number of items
+     */
+    public int size()
+    {
+        return keys.size();
+    }
+
+    /**
+     * Returns the number of distinct values in the queue. It takes
+     * O(n log n) time
+     *
+     * @return The number of distinct values
+     */
+    public int distinctSize()
+    {
+        return keys.distinctSize();
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    public boolean isEmpty()
+    {
+        return keys.isEmpty();
+    }
+
+    /**
+     * Prints the queue in sorted order
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        return keys.toString();
+    }
+}
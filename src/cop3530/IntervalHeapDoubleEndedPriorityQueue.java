@@ -0,0 +1,509 @@
+package cop3530;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * This class implements a double ended priority queue using an interval heap
+ * stored in a single array. Every node holds a pair of items, a low at index
+ * 2k and a high at index 2k + 1, and the interval of every node lies inside
+ * the interval of its parent. The lows form a min heap and the highs a max
+ * heap, so the smallest item is the low of the root and the largest is its
+ * high. Two items per node make the tree about half as tall as a binary heap
+ * of the same size. The last node may hold a single item, which counts as
+ * both its low and its high
+ *
+ * @author David Romero PID: 3624439
+ */
+public class IntervalHeapDoubleEndedPriorityQueue<AnyType> implements
+        DoubleEndedPriorityQueue<AnyType>
+{
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private final Comparator<? super AnyType> cmp;//Comparator for the data
+    private AnyType[] array;                //The pairs, low then high
+    private int size = 0;                   //Number of items in the heap
+
+    /**
+     * Constructs an empty heap
+     */
+    public IntervalHeapDoubleEndedPriorityQueue()
+    {
+        this((Comparator<? super AnyType>) null);
+    }
+
+    /**
+     * Constructs an empty heap that accepts a different comparator
+     *
+     * @param c Comparator that will be used
+     */
+    @SuppressWarnings("unchecked")
+    public IntervalHeapDoubleEndedPriorityQueue(Comparator<? super AnyType> c)
+    {
+        cmp = NaturalOrder.orNatural(c);
+        array = (AnyType[]) new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Constructs a heap from an array of items in linear time
+     *
+     * @param items The items to put in the heap
+     */
+    public IntervalHeapDoubleEndedPriorityQueue(AnyType[] items)
+    {
+        this(items, null);
+    }
+
+    /**
+     * Constructs a heap from an array of items in linear time, using a
+     * different comparator
+     *
+     * @param items The items to put in the heap
+     * @param c Comparator that will be used
+     */
+    @SuppressWarnings("unchecked")
+    public IntervalHeapDoubleEndedPriorityQueue(AnyType[] items,
+            Comparator<? super AnyType> c)
+    {
+        cmp = NaturalOrder.orNatural(c);
+        size = items.length;
+        array = (AnyType[]) new Object[Math.max(DEFAULT_CAPACITY, size)];
+        System.arraycopy(items, 0, array, 0, size);
+        buildHeap();
+    }
+
+    /**
+     * Compares two pieces of data with the comparator picked at construction
+     * (natural ordering if none was given).
+     *
+     * @param lhs The first piece data being used to compare
+     * @param rhs The second piece of data being used to compare
+     * @return -1 if lhs is less than rhs, 1 if it's greater, 0 if it is equal
+     */
+    public int myCompare(AnyType lhs, AnyType rhs)
+    {
+        return cmp.compare(lhs, rhs);
+    }
+
+    /**
+     * Returns the comparator that orders the queue
+     *
+     * @return The comparator, natural ordering if none was given
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return cmp;
+    }
+
+    /**
+     * Empties the heap
+     */
+    @Override
+    public void makeEmpty()
+    {
+        Arrays.fill(array, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Adds data to the heap
+     *
+     * @param x The data to be added
+     */
+    @Override
+    public void add(AnyType x)
+    {
+        if (size == array.length)
+        {
+            array = Arrays.copyOf(array, array.length * 2 + 2);
+        }
+
+        int i = size++;
+        int k = i / 2;
+
+        //Second item of a node: it becomes the low or the high of its node
+        if ((i & 1) == 1)
+        {
+            if (myCompare(x, array[i - 1]) < 0)
+            {
+                array[i] = array[i - 1];
+                percolateUpMin(k, x);
+            }
+            else
+            {
+                percolateUpMax(k, x);
+            }
+            return;
+        }
+
+        //First item of a new node: it only moves if it falls outside the
+        //interval of the parent
+        if (k == 0)
+        {
+            array[0] = x;
+            return;
+        }
+        int p = (k - 1) / 2;
+        if (myCompare(x, array[2 * p]) < 0)
+        {
+            percolateUpMin(k, x);
+        }
+        else if (myCompare(x, array[2 * p + 1]) > 0)
+        {
+            percolateUpMax(k, x);
+        }
+        else
+        {
+            array[i] = x;
+        }
+    }
+
+    /**
+     * Adds every item in a collection. See addAll(AnyType[])
+     *
+     * @param items The items to be added
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addAll(Collection<? extends AnyType> items)
+    {
+        addAll((AnyType[]) items.toArray());
+    }
+
+    /**
+     * Adds every item in an array. Small batches are added one at a time;
+     * larger ones are appended and the whole heap is rebuilt in linear time
+     *
+     * @param items The items to be added
+     */
+    @Override
+    public void addAll(AnyType[] items)
+    {
+        if (items.length < size)
+        {
+            for (AnyType x : items)
+            {
+                add(x);
+            }
+            return;
+        }
+
+        if (size + items.length > array.length)
+        {
+            array = Arrays.copyOf(array, size + items.length);
+        }
+        System.arraycopy(items, 0, array, size, items.length);
+        size += items.length;
+        buildHeap();
+    }
+
+    /**
+     * Deletes the smallest value in the heap
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        AnyType rem = array[0];
+        AnyType last = array[--size];
+        array[size] = null;
+        if (size > 0)
+        {
+            percolateDownMin(0, last);
+        }
+        return rem;
+    }
+
+    /**
+     * Deletes the largest value in the heap
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+        if (size <= 2)
+        {
+            AnyType rem = array[size - 1];
+            array[--size] = null;
+            return rem;
+        }
+
+        AnyType rem = array[1];
+        AnyType last = array[--size];
+        array[size] = null;
+        percolateDownMax(0, last);
+        return rem;
+    }
+
+    /**
+     * Finds the smallest value in the heap
+     *
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return array[0];
+    }
+
+    /**
+     * Finds the largest value in the heap
+     *
+     * @return The largest value
+     */
+    @Override
+    public AnyType findMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return array[size == 1 ? 0 : 1];
+    }
+
+    /**
+     * Returns the number of items in the heap
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values in the heap. The heap does not
+     * keep equal items together, so this sorts a copy and counts the runs;
+     * it takes O(n log n) time
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        AnyType[] sorted = Arrays.copyOf(array, size);
+        Arrays.sort(sorted, cmp);
+
+        int runs = size == 0 ? 0 : 1;
+        for (int i = 1; i < size; i++)
+        {
+            if (myCompare(sorted[i - 1], sorted[i]) != 0)
+            {
+                ++runs;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Checks if the heap is empty
+     *
+     * @return Boolean showing whether the heap is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Prints the heap in sorted order
+     *
+     * @return The heap
+     */
+    @Override
+    public String toString()
+    {
+        if (isEmpty())
+        {
+            return "[]";
+        }
+
+        AnyType[] sorted = Arrays.copyOf(array, size);
+        Arrays.sort(sorted, cmp);
+
+        StringBuilder sb = new StringBuilder("[ ");
+        for (AnyType x : sorted)
+        {
+            sb.append(x);
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+
+    /**
+     * Returns the index of the high of a node, which is its only item if the
+     * node is the last one and holds a single item
+     *
+     * @param k The node
+     * @return The index of the high
+     */
+    private int high(int k)
+    {
+        return Math.min(2 * k + 1, size - 1);
+    }
+
+    /**
+     * Orders the pair of every node, then fixes the nodes from the last
+     * parent up to the root, in linear time
+     */
+    private void buildHeap()
+    {
+        for (int i = 1; i < size; i += 2)
+        {
+            if (myCompare(array[i - 1], array[i]) > 0)
+            {
+                AnyType tmp = array[i - 1];
+                array[i - 1] = array[i];
+                array[i] = tmp;
+            }
+        }
+
+        int nodes = (size + 1) / 2;
+        for (int k = nodes / 2 - 1; k >= 0; k--)
+        {
+            percolateDownMin(k, array[2 * k]);
+            percolateDownMax(k, array[high(k)]);
+        }
+    }
+
+    /**
+     * Moves an item up through the lows until it is no smaller than the low
+     * of its parent
+     *
+     * @param k The node whose low is being filled
+     * @param x The item being placed
+     */
+    private void percolateUpMin(int k, AnyType x)
+    {
+        for (; k > 0 && myCompare(x, array[2 * ((k - 1) / 2)]) < 0;
+                k = (k - 1) / 2)
+        {
+            array[2 * k] = array[2 * ((k - 1) / 2)];
+        }
+        array[2 * k] = x;
+    }
+
+    /**
+     * Moves an item up through the highs until it is no larger than the high
+     * of its parent
+     *
+     * @param k The node whose high is being filled
+     * @param x The item being placed
+     */
+    private void percolateUpMax(int k, AnyType x)
+    {
+        int hole = high(k);
+        for (; k > 0 && myCompare(x, array[2 * ((k - 1) / 2) + 1]) > 0;
+                k = (k - 1) / 2)
+        {
+            array[hole] = array[2 * ((k - 1) / 2) + 1];
+            hole = 2 * ((k - 1) / 2) + 1;
+        }
+        array[hole] = x;
+    }
+
+    /**
+     * Fills the low of a node whose subtrees are interval heaps, moving the
+     * smaller low of its children up until x fits. Wherever x is larger than
+     * the high of the node it passes, the two swap
+     *
+     * @param k The node whose low is empty
+     * @param x The item being placed
+     */
+    private void percolateDownMin(int k, AnyType x)
+    {
+        for (;;)
+        {
+            int h = 2 * k + 1;
+            if (h < size && myCompare(x, array[h]) > 0)
+            {
+                AnyType tmp = array[h];
+                array[h] = x;
+                x = tmp;
+            }
+
+            int c = 2 * k + 1;
+            if (2 * c >= size)
+            {
+                break;
+            }
+            if (2 * c + 2 < size
+                    && myCompare(array[2 * c + 2], array[2 * c]) < 0)
+            {
+                ++c;
+            }
+            if (myCompare(array[2 * c], x) >= 0)
+            {
+                break;
+            }
+
+            array[2 * k] = array[2 * c];
+            k = c;
+        }
+        array[2 * k] = x;
+    }
+
+    /**
+     * Fills the high of a node whose subtrees are interval heaps, moving the
+     * larger high of its children up until x fits. Wherever x is smaller
+     * than the low of the node it passes, the two swap
+     *
+     * @param k The node whose high is empty
+     * @param x The item being placed
+     */
+    private void percolateDownMax(int k, AnyType x)
+    {
+        for (;;)
+        {
+            int l = 2 * k;
+            if (l + 1 < size && myCompare(x, array[l]) < 0)
+            {
+                AnyType tmp = array[l];
+                array[l] = x;
+                x = tmp;
+            }
+
+            int c = 2 * k + 1;
+            if (2 * c >= size)
+            {
+                break;
+            }
+            if (2 * c + 2 < size
+                    && myCompare(array[high(c + 1)], array[high(c)]) > 0)
+            {
+                ++c;
+            }
+            if (myCompare(array[high(c)], x) <= 0)
+            {
+                break;
+            }
+
+            array[high(k)] = array[high(c)];
+            k = c;
+        }
+        array[high(k)] = x;
+    }
+}
@@ -0,0 +1,146 @@
+package cop3530;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds that many threads can record into
+ * without a lock. Values are kept in log-linear buckets, as HdrHistogram
+ * does: every power of two is split into 32 buckets, so a recorded value is
+ * known to within about 3% while the whole range of a long fits in under
+ * 2000 counters
+ *
+ * @author David Romero PID: 3624439
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BITS = 5;  //log2 of buckets per power of 2
+    private static final int SUB = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts
+            = new AtomicLongArray((64 - SUB_BITS) * SUB);
+    private final AtomicLong max = new AtomicLong();//Largest value recorded
+
+    /**
+     * Records one value
+     *
+     * @param nanos The latency, negative values count as 0
+     */
+    public void record(long nanos)
+    {
+        long v = Math.max(nanos, 0);
+        counts.incrementAndGet(index(v));
+
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v))
+        {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of values recorded
+     *
+     * @return The count
+     */
+    public long count()
+    {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++)
+        {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the largest value recorded
+     *
+     * @return The largest value, 0 if nothing was recorded
+     */
+    public long max()
+    {
+        return max.get();
+    }
+
+    /**
+     * Finds the value that the given fraction of recorded values are no
+     * larger than. Reports the top of the bucket it lands in, so it may be
+     * up to about 3% high. Values recorded while this runs may or may not be
+     * counted
+     *
+     * @param p The fraction, between 0 and 1
+     * @return The value, 0 if nothing was recorded
+     */
+    public long percentile(double p)
+    {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++)
+        {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < copy.length; i++)
+        {
+            seen += copy[i];
+            if (seen >= rank)
+            {
+                return Math.min(highest(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every recorded value
+     */
+    public void reset()
+    {
+        for (int i = 0; i < counts.length(); i++)
+        {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    /**
+     * Finds the bucket of a value. Values below 2 * SUB get a bucket each;
+     * larger ones keep their top SUB_BITS + 1 bits
+     *
+     * @param v The value, not negative
+     * @return The bucket
+     */
+    private static int index(long v)
+    {
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        if (shift <= 0)
+        {
+            return (int) v;
+        }
+        return (shift + 1) * SUB + (int) (v >>> shift) - SUB;
+    }
+
+    /**
+     * Finds the largest value that falls in a bucket
+     *
+     * @param i The bucket
+     * @return The largest value
+     */
+    private static long highest(int i)
+    {
+        if (i < 2 * SUB)
+        {
+            return i;
+        }
+        int shift = i / SUB - 1;
+        return ((long) (i % SUB + SUB + 1) << shift) - 1;
+    }
+}
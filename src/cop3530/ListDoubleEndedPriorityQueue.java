@@ -1,19 +1,49 @@
 package cop3530;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * This class implements a double ended priority queue using a linked list
+ * This class implements a double ended priority queue using a linked list.
+ * The list is indexed by skip list express lanes so add can find its place
+ * in O(log n) expected time instead of scanning from the front. The list can
+ * be walked in either direction with fail-fast iterators
  *
  * @author David Romero PID: 3624439
  */
 public class ListDoubleEndedPriorityQueue<AnyType> implements
-        DoubleEndedPriorityQueue<AnyType>
+        DoubleEndedPriorityQueue<AnyType>, Iterable<AnyType>
 {
-    private Comparator<? super AnyType> cmp;//Comparator for any type of data
+    private final Comparator<? super AnyType> cmp;//Comparator for the data
     private Node<AnyType> first = null;     //First node
     private Node<AnyType> last = null;      //Last node
     private int size = 0;                   //The size of the list
+    private int distinct = 0;               //Runs of equal items
+    private int modCount = 0;               //Changes, for fail-fast iterators
+    private int lastScan = 0;               //Nodes the last add stepped over
+
+    private static final int MAX_LEVEL = 32;//Most express lanes
+    private static final double DEFAULT_PROBABILITY = 0.25;
+
+    private final double probability;       //Chance of joining the next lane
+    private final Random random = new Random();
+    private final Node<AnyType>[] laneFirst;//First node in each express lane
+    private final Node<AnyType>[] laneLast; //Last node in each express lane
+    private final Node<AnyType>[] update;   //Search path used by add
+    private int levels = 0;                 //Number of lanes in use
+    private long laneLinks = 0;             //Express links held by the nodes
 
     /**
      * Creates a node for the linked list
@@ -25,6 +55,9 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
         private AnyType data;               //The data within the node
         private Node<AnyType> next;         //Next node
         private Node<AnyType> previous;     //Previous node
+        private Node<AnyType>[] skipNext;   //Next node in each express lane
+        private Node<AnyType>[] skipPrev;   //Previous node in each lane
+        private boolean repeat;             //Equal to the previous node
 
         /**
          * Creates a node for the linked list
@@ -56,13 +89,36 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
      */
     public ListDoubleEndedPriorityQueue(Comparator<? super AnyType> c)
     {
-        cmp = c;
+        this(c, DEFAULT_PROBABILITY);
+    }
+
+    /**
+     * Constructs a list object that accepts a different comparator and
+     * chance of a node joining each higher express lane. Higher chances give
+     * shorter searches but more links per node; 0 turns the index off
+     *
+     * @param c Comparator that will be used
+     * @param p Chance of a node joining the next express lane, 0 to 1
+     */
+    public ListDoubleEndedPriorityQueue(Comparator<? super AnyType> c,
+            double p)
+    {
+        if (!(p >= 0 && p < 1))
+        {
+            throw new IllegalArgumentException("Probability must be in [0, 1)");
+        }
+
+        cmp = NaturalOrder.orNatural(c);
+        probability = p;
+        laneFirst = newLanes(MAX_LEVEL);
+        laneLast = newLanes(MAX_LEVEL);
+        update = newLanes(MAX_LEVEL);
         makeEmpty();
     }
 
     /**
-     * Compares two pieces of data. If the data is not comparable, cast it to
-     * comparable and return the results.
+     * Compares two pieces of data with the comparator picked at construction
+     * (natural ordering if none was given).
      *
      * @param lhs The first piece data being used to compare
      * @param rhs The second piece of data being used to compare
@@ -70,14 +126,20 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
      */
     public int myCompare(AnyType lhs, AnyType rhs)
     {
-        if (cmp == null)
-        {
-            return ((Comparable) lhs).compareTo(rhs);
-        }
-
         return cmp.compare(lhs, rhs);
     }
 
+    /**
+     * Returns the comparator that orders the queue
+     *
+     * @return The comparator, natural ordering if none was given
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return cmp;
+    }
+
     /**
      * Empties the entire list
      *
@@ -88,6 +150,178 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
         first = null;
         last = null;
         size = 0;
+        distinct = 0;
+        ++modCount;
+        Arrays.fill(laneFirst, null);
+        Arrays.fill(laneLast, null);
+        Arrays.fill(update, null);
+        levels = 0;
+        laneLinks = 0;
+    }
+
+    /**
+     * Returns how many express lane links the nodes hold. Each is one extra
+     * reference on top of the next and previous links of the base list, so
+     * this is the memory cost of the index
+     *
+     * @return The number of express lane links
+     */
+    public long indexLinks()
+    {
+        return laneLinks;
+    }
+
+    /**
+     * Creates a node and picks how many express lanes it joins
+     *
+     * @param x The data stored within the node
+     * @param p The node before the new node
+     * @param n The node after the new node
+     * @return The new node, not yet linked into any lane
+     */
+    private Node<AnyType> newNode(AnyType x, Node<AnyType> p, Node<AnyType> n)
+    {
+        Node<AnyType> node = new Node<>(x, p, n);
+        pickLanes(node);
+        return node;
+    }
+
+    /**
+     * Picks how many express lanes a node joins and gives it room for the
+     * links. Each lane is joined with the configured probability
+     *
+     * @param n The node, not linked into any lane
+     */
+    private void pickLanes(Node<AnyType> n)
+    {
+        n.skipNext = n.skipPrev = null;
+
+        int level = 0;
+        while (level < MAX_LEVEL && random.nextDouble() < probability)
+        {
+            ++level;
+        }
+
+        if (level > 0)
+        {
+            n.skipNext = newLanes(level);
+            n.skipPrev = newLanes(level);
+        }
+    }
+
+    /**
+     * Creates an array of lane links. Java cannot create a generic array, so
+     * the raw array is cast here and nowhere else
+     *
+     * @param levels The number of lanes
+     * @return The empty links
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <AnyType> Node<AnyType>[] newLanes(int levels)
+    {
+        Node<AnyType>[] lanes = new Node[levels];
+        return lanes;
+    }
+
+    /**
+     * Links a node into each of its express lanes right after the given
+     * nodes
+     *
+     * @param n The node to link
+     * @param pred The node to follow in each lane, null (or a null array)
+     * for the front of the lane
+     */
+    private void linkLanes(Node<AnyType> n, Node<AnyType>[] pred)
+    {
+        if (n.skipNext == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < n.skipNext.length; i++)
+        {
+            Node<AnyType> p = pred == null ? null : pred[i];
+            Node<AnyType> s = p == null ? laneFirst[i] : p.skipNext[i];
+
+            n.skipPrev[i] = p;
+            n.skipNext[i] = s;
+            if (p == null)
+            {
+                laneFirst[i] = n;
+            }
+            else
+            {
+                p.skipNext[i] = n;
+            }
+            if (s == null)
+            {
+                laneLast[i] = n;
+            }
+            else
+            {
+                s.skipPrev[i] = n;
+            }
+        }
+
+        levels = Math.max(levels, n.skipNext.length);
+        laneLinks += 2 * n.skipNext.length;
+    }
+
+    /**
+     * Takes a node out of each of its express lanes
+     *
+     * @param n The node to unlink
+     */
+    private void unlinkLanes(Node<AnyType> n)
+    {
+        if (n.skipNext == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < n.skipNext.length; i++)
+        {
+            Node<AnyType> p = n.skipPrev[i];
+            Node<AnyType> s = n.skipNext[i];
+
+            if (p == null)
+            {
+                laneFirst[i] = s;
+            }
+            else
+            {
+                p.skipNext[i] = s;
+            }
+            if (s == null)
+            {
+                laneLast[i] = p;
+            }
+            else
+            {
+                s.skipPrev[i] = p;
+            }
+        }
+
+        laneLinks -= 2 * n.skipNext.length;
+    }
+
+    /**
+     * Throws away the express lanes and rebuilds them over the whole list in
+     * one pass
+     */
+    private void rebuildIndex()
+    {
+        Arrays.fill(laneFirst, null);
+        Arrays.fill(laneLast, null);
+        Arrays.fill(update, null);
+        levels = 0;
+        laneLinks = 0;
+
+        for (Node<AnyType> f = first; f != null; f = f.next)
+        {
+            pickLanes(f);
+            linkLanes(f, laneLast);
+        }
     }
 
     /**
@@ -98,8 +332,9 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
      */
     private void addFront(AnyType x)
     {
-        first = new Node(x, null, first);
+        first = newNode(x, null, first);
         first.next.previous = first;
+        linkLanes(first, null);
         ++size;
     }
 
@@ -111,8 +346,9 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
      */
     private void addEnd(AnyType x)
     {
-        last = new Node(x, last, null);
+        last = newNode(x, last, null);
         last.previous.next = last;
+        linkLanes(last, laneLast);
         ++size;
     }
 
@@ -124,59 +360,194 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
     @Override
     public void add(AnyType x)
     {
+        ++modCount;
+        lastScan = 0;
+
         //If the list is empty, both the first and last node are 
         //the same node
         if (isEmpty())
         {
-            first = last = new Node(x, null, null);
+            first = last = newNode(x, null, null);
+            linkLanes(first, null);
             ++size;
+            ++distinct;
+            return;
         }
-        //If there is already a node in the list
-        else if (size == 1)
+
+        //The comparisons that place x also tell whether it is equal to a
+        //neighbour, which keeps the distinct count without extra work
+        int c = myCompare(x, first.data);
+
+        //Checking if the new data is no larger than the first. An equal
+        //first node becomes a repeat of the new one
+        if (c <= 0)
         {
-            //Checking if the new node entered is smaller than the existing node
-            if (myCompare(first.data, x) >= 0)
+            addFront(x);
+            if (c == 0)
             {
-                addFront(x);
+                first.next.repeat = true;
             }
-            //Else just add it to the end of the list
-            else if (myCompare(first.data, x) <= 0)
+            else
             {
-                addEnd(x);
+                ++distinct;
             }
-
         }
-        //Checking if the data coming in is smaller than the first
-        else
+        //Checking if the last data is no larger than the new data. With only
+        //one node the first comparison already answered this
+        else if (size == 1 || (c = myCompare(x, last.data)) >= 0)
         {
-            if (myCompare(first.data, x) >= 0)
+            addEnd(x);
+            if (c == 0)
             {
-                addFront(x);
+                last.repeat = true;
             }
-            //Checking if the last data is smaller than the new data
-            else if (myCompare(last.data, x) <= 0)
+            else
             {
-                addEnd(x);
+                ++distinct;
             }
-            else
+        }
+        else
+        {
+            //Ride the express lanes from the highest down, stopping in each
+            //at the last node no larger than x. One comparison per node.
+            //Whether x equals the node it ends up behind is remembered on
+            //the way (it starts behind the first node, which is smaller)
+            Node<AnyType> p = null;
+            boolean repeat = false;
+            int steps = 0;
+            for (int i = levels - 1; i >= 0; i--)
             {
-                //Placing data within the list when there is already existing 
-                //data. Stepping through the list node by node, placing it in 
-                //the right place
-                for (Node<AnyType> f = first.next; f != null; f = f.next)
+                Node<AnyType> s = p == null ? laneFirst[i] : p.skipNext[i];
+                while (s != null && (c = myCompare(x, s.data)) >= 0)
                 {
-                    //Checking if the data is smaller than the next node
-                    if (myCompare(x, f.data) < 0)
-                    {
-                        f.previous = f.previous.next = new Node(x, f.previous, f);
-                        ++size;
-                        break;
-                    }
+                    p = s;
+                    repeat = c == 0;
+                    s = p.skipNext[i];
+                    ++steps;
                 }
+                update[i] = p;
+            }
+
+            //Finish on the base list. The last node is larger than x, so
+            //this stops before running off the end
+            Node<AnyType> f = p == null ? first.next : p.next;
+            while ((c = myCompare(x, f.data)) >= 0)
+            {
+                repeat = c == 0;
+                f = f.next;
+                ++steps;
+            }
+            lastScan = steps;
+
+            Node<AnyType> n = newNode(x, f.previous, f);
+            f.previous = f.previous.next = n;
+            linkLanes(n, update);
+            n.repeat = repeat;
+            ++size;
+            if (!repeat)
+            {
+                ++distinct;
             }
         }
     }
 
+    /**
+     * Adds every item in a collection. See addAll(AnyType[])
+     *
+     * @param items The items to be added
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addAll(Collection<? extends AnyType> items)
+    {
+        addAll((AnyType[]) items.toArray());
+    }
+
+    /**
+     * Adds every item in an array. A batch smaller than the list is added one
+     * item at a time through the express lanes, in O(k log n). A larger one
+     * is sorted once (skipped if it is already sorted) and merged into the
+     * list in a single pass, and the express lanes are then rebuilt in one
+     * more pass
+     *
+     * @param items The items to be added
+     */
+    @Override
+    public void addAll(AnyType[] items)
+    {
+        if (items.length == 0 || items.length < size)
+        {
+            for (AnyType x : items)
+            {
+                add(x);
+            }
+            return;
+        }
+
+        AnyType[] sorted = items.clone();
+        if (!isSorted(sorted))
+        {
+            Arrays.sort(sorted, cmp);
+        }
+        ++modCount;
+
+        //Walk the list and the sorted items together, linking each item in
+        //front of the first node that is larger than it
+        Node<AnyType> f = first;
+        for (AnyType x : sorted)
+        {
+            while (f != null && myCompare(x, f.data) >= 0)
+            {
+                f = f.next;
+            }
+
+            Node<AnyType> p = f == null ? last : f.previous;
+            Node<AnyType> n = new Node<>(x, p, f);
+            if (p == null)
+            {
+                first = n;
+            }
+            else
+            {
+                p.next = n;
+                n.repeat = myCompare(p.data, x) == 0;
+            }
+            if (!n.repeat)
+            {
+                ++distinct;
+            }
+            if (f == null)
+            {
+                last = n;
+            }
+            else
+            {
+                f.previous = n;
+            }
+            ++size;
+        }
+
+        rebuildIndex();
+    }
+
+    /**
+     * Checks whether an array is already in ascending order
+     *
+     * @param items The array to check
+     * @return True if the array is sorted
+     */
+    private boolean isSorted(AnyType[] items)
+    {
+        for (int i = 1; i < items.length; i++)
+        {
+            if (myCompare(items[i - 1], items[i]) > 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Deletes the smallest value in the list
      *
@@ -202,10 +573,22 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
         //Else the list has more than one element, grab the front
         else
         {
+            ++modCount;
+            unlinkLanes(first);
             AnyType rem = first.data;
             first = first.next;
             first.previous = null;
             --size;
+
+            //The run of equal items goes on if the new first repeated it
+            if (first.repeat)
+            {
+                first.repeat = false;
+            }
+            else
+            {
+                --distinct;
+            }
             return rem;
         }
     }
@@ -234,7 +617,13 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
         //Else grab the end and reassin the links accordingly
         else
         {
+            ++modCount;
+            unlinkLanes(last);
             --size;
+            if (!last.repeat)
+            {
+                --distinct;
+            }
             AnyType rem = last.data;
             last = last.previous;
             last.next = null;
@@ -242,6 +631,217 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
         }
     }
 
+    /**
+     * Deletes up to k of the smallest values. Walks the first k nodes once
+     * (taking each out of the front of its express lanes) and splits the
+     * whole prefix off the list with a single relink
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMin(int k, Collection<? super AnyType> out)
+    {
+        //Nothing to take, leave modCount so open iterators keep working
+        if (k <= 0 || size == 0)
+        {
+            return 0;
+        }
+
+        ++modCount;
+        int removed = 0;
+        int runs = 0;
+        Node<AnyType> f = first;
+        for (; f != null && removed < k; f = f.next, ++removed)
+        {
+            out.add(f.data);
+            unlinkLanes(f);
+            if (!f.repeat)
+            {
+                ++runs;
+            }
+        }
+
+        if (f == null)
+        {
+            makeEmpty();
+        }
+        else
+        {
+            //A run that carries on past the split still has items left
+            if (f.repeat)
+            {
+                f.repeat = false;
+                --runs;
+            }
+            first = f;
+            first.previous = null;
+            size -= removed;
+            distinct -= runs;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Deletes up to k of the largest values. Walks the last k nodes once
+     * (taking each out of the back of its express lanes) and splits the
+     * whole suffix off the list with a single relink
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMax(int k, Collection<? super AnyType> out)
+    {
+        //Nothing to take, leave modCount so open iterators keep working
+        if (k <= 0 || size == 0)
+        {
+            return 0;
+        }
+
+        ++modCount;
+        int removed = 0;
+        int runs = 0;
+        Node<AnyType> l = last;
+        for (; l != null && removed < k; l = l.previous, ++removed)
+        {
+            out.add(l.data);
+            unlinkLanes(l);
+            if (!l.repeat)
+            {
+                ++runs;
+            }
+        }
+
+        if (l == null)
+        {
+            makeEmpty();
+        }
+        else
+        {
+            last = l;
+            last.next = null;
+            size -= removed;
+            distinct -= runs;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes every item smaller than x. The prefix is walked once to count
+     * it and to find where each express lane now starts, then split off the
+     * list with a single relink
+     *
+     * @param x The cutoff
+     * @return The number of items removed
+     */
+    public int removeLessThan(AnyType x)
+    {
+        int removed = 0;
+        int runs = 0;
+        Node<AnyType> f = first;
+        for (; f != null && myCompare(f.data, x) < 0; f = f.next, ++removed)
+        {
+            if (!f.repeat)
+            {
+                ++runs;
+            }
+            //Each lane ends up starting after the last removed node in it
+            if (f.skipNext != null)
+            {
+                for (int i = 0; i < f.skipNext.length; i++)
+                {
+                    laneFirst[i] = f.skipNext[i];
+                }
+                laneLinks -= 2 * f.skipNext.length;
+            }
+        }
+
+        if (f == null)
+        {
+            makeEmpty();
+        }
+        else if (removed > 0)
+        {
+            for (int i = 0; i < levels; i++)
+            {
+                if (laneFirst[i] == null)
+                {
+                    laneLast[i] = null;
+                }
+                else
+                {
+                    laneFirst[i].skipPrev[i] = null;
+                }
+            }
+            first = f;
+            first.previous = null;
+            size -= removed;
+            distinct -= runs;
+            ++modCount;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes every item larger than x. Mirror image of removeLessThan
+     *
+     * @param x The cutoff
+     * @return The number of items removed
+     */
+    public int removeGreaterThan(AnyType x)
+    {
+        int removed = 0;
+        int runs = 0;
+        Node<AnyType> l = last;
+        for (; l != null && myCompare(l.data, x) > 0; l = l.previous, ++removed)
+        {
+            if (!l.repeat)
+            {
+                ++runs;
+            }
+            if (l.skipPrev != null)
+            {
+                for (int i = 0; i < l.skipPrev.length; i++)
+                {
+                    laneLast[i] = l.skipPrev[i];
+                }
+                laneLinks -= 2 * l.skipPrev.length;
+            }
+        }
+
+        if (l == null)
+        {
+            makeEmpty();
+        }
+        else if (removed > 0)
+        {
+            for (int i = 0; i < levels; i++)
+            {
+                if (laneLast[i] == null)
+                {
+                    laneFirst[i] = null;
+                }
+                else
+                {
+                    laneLast[i].skipNext[i] = null;
+                }
+            }
+            last = l;
+            last.next = null;
+            size -= removed;
+            distinct -= runs;
+            ++modCount;
+        }
+
+        return removed;
+    }
+
     /**
      * Finds the smallest value in the list
      *
@@ -275,6 +875,30 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
         return last.data;
     }
 
+    /**
+     * Returns the number of items in the list
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values in the list. Every node knows
+     * whether it repeats the one before it, so this is kept up to date as
+     * items come and go
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        return distinct;
+    }
+
     /**
      * Checks if the list is empty
      *
@@ -310,4 +934,192 @@ public class ListDoubleEndedPriorityQueue<AnyType> implements
 
         return new String(sb);
     }
+
+    /**
+     * Prints the queue to an Appendable one item at a time, in the same
+     * format as toString, so a large queue is never held as one String
+     *
+     * @param out Where the text goes
+     * @throws IOException If out fails to take the text
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        QueueWriter.write(iterator(), out);
+    }
+
+    /**
+     * Prints the queue as UTF-8 to a channel, in the same format as
+     * toString. Only a small fixed buffer is held between writes. The
+     * channel is left open
+     *
+     * @param ch Where the bytes go
+     * @throws IOException If the channel fails to take the bytes
+     */
+    public void writeTo(WritableByteChannel ch) throws IOException
+    {
+        QueueWriter.write(iterator(), ch);
+    }
+
+    /**
+     * Describes the queue in one short line for logs: its size, smallest
+     * and largest values, and the first n items in ascending order
+     *
+     * @param n The most items to print
+     * @return The summary
+     */
+    public String summary(int n)
+    {
+        return QueueWriter.summary(this, iterator(), n);
+    }
+
+    /**
+     * Writes the queue to a snapshot file in ascending order
+     *
+     * @param file The file to write, replaced if it exists
+     * @param codec Encodes the items
+     * @throws IOException If the file cannot be written
+     */
+    public void writeSnapshot(Path file, SnapshotCodec<? super AnyType> codec)
+            throws IOException
+    {
+        QueueSnapshot.write(file, size, iterator(), codec);
+    }
+
+    /**
+     * Replaces the contents of the queue with a snapshot file. The file is
+     * memory mapped and the items come back already sorted, so addAll
+     * skips its sort and builds the list and its lanes in linear time
+     *
+     * @param file The file to read
+     * @param codec Decodes the items
+     * @throws IOException If the file cannot be read or is not a snapshot
+     */
+    public void readSnapshot(Path file, SnapshotCodec<? extends AnyType> codec)
+            throws IOException
+    {
+        AnyType[] items = QueueSnapshot.read(file, codec);
+        makeEmpty();
+        addAll(items);
+    }
+
+    /**
+     * Returns how many nodes the last add stepped over to find its place,
+     * counting express lane hops and base list steps. Adds at either end
+     * take no steps
+     *
+     * @return The scan length of the last add
+     */
+    public int lastScanLength()
+    {
+        return lastScan;
+    }
+
+    /**
+     * Returns the length of the longest run of equal items. Walks the list,
+     * so it takes O(n) time
+     *
+     * @return The longest run, 0 if the list is empty
+     */
+    public int maxRunLength()
+    {
+        int longest = 0;
+        int run = 0;
+        for (Node<AnyType> f = first; f != null; f = f.next)
+        {
+            run = f.repeat ? run + 1 : 1;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /**
+     * Returns an iterator over the items in ascending order
+     *
+     * @return The iterator
+     */
+    @Override
+    public Iterator<AnyType> iterator()
+    {
+        return new ListIterator(false);
+    }
+
+    /**
+     * Returns an iterator over the items in descending order
+     *
+     * @return The iterator
+     */
+    public Iterator<AnyType> descendingIterator()
+    {
+        return new ListIterator(true);
+    }
+
+    /**
+     * Returns a spliterator over the items in ascending order. A linked list
+     * cannot be cut in the middle without walking to it, so splitting hands
+     * off batches copied from the front
+     *
+     * @return The spliterator
+     */
+    @Override
+    public Spliterator<AnyType> spliterator()
+    {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns a sequential stream over the items in ascending order. Call
+     * parallel() on it to spread the work across threads
+     *
+     * @return The stream
+     */
+    public Stream<AnyType> stream()
+    {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Walks the base list in either direction. Fails fast if the list is
+     * changed while walking
+     */
+    private class ListIterator implements Iterator<AnyType>
+    {
+        private Node<AnyType> node;             //Next node to return
+        private final boolean descending;       //Direction of the walk
+        private final int expectedModCount = modCount;
+
+        /**
+         * Creates an iterator starting at one end of the list
+         *
+         * @param descending True to start at the end and walk backwards
+         */
+        ListIterator(boolean descending)
+        {
+            this.descending = descending;
+            node = descending ? last : first;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return node != null;
+        }
+
+        @Override
+        public AnyType next()
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (node == null)
+            {
+                throw new NoSuchElementException();
+            }
+
+            AnyType x = node.data;
+            node = descending ? node.previous : node.next;
+            return x;
+        }
+    }
 }
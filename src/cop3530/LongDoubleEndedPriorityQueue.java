@@ -0,0 +1,435 @@
+package cop3530;
+
+import java.util.Arrays;
+
+/**
+ * Double ended priority queue of primitive longs. Uses the same min-max heap
+ * layout as MinMaxHeapDoubleEndedPriorityQueue but stores the values in a
+ * long array, so nothing is boxed and no comparator is called. The int and
+ * double queues map their values to long keys and keep them in this heap
+ *
+ * @author David Romero PID: 3624439
+ */
+public class LongDoubleEndedPriorityQueue
+{
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private long[] array;                   //The heap array
+    private int size = 0;                   //Number of items in the heap
+
+    /**
+     * Constructs an empty queue
+     */
+    public LongDoubleEndedPriorityQueue()
+    {
+        array = new long[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Constructs a queue from an array of values in linear time
+     *
+     * @param items The values to put in the queue
+     */
+    public LongDoubleEndedPriorityQueue(long[] items)
+    {
+        size = items.length;
+        array = Arrays.copyOf(items, Math.max(DEFAULT_CAPACITY, size));
+        for (int i = size / 2 - 1; i >= 0; i--)
+        {
+            percolateDown(i);
+        }
+    }
+
+    /**
+     * Empties the queue
+     */
+    public void makeEmpty()
+    {
+        size = 0;
+    }
+
+    /**
+     * Adds a value to the queue
+     *
+     * @param x The value to be added
+     */
+    public void add(long x)
+    {
+        if (size == array.length)
+        {
+            array = Arrays.copyOf(array, array.length * 2 + 1);
+        }
+
+        int hole = size++;
+        if (hole == 0)
+        {
+            array[0] = x;
+            return;
+        }
+
+        int parent = (hole - 1) / 2;
+        if (isMinLevel(hole))
+        {
+            if (x > array[parent])
+            {
+                array[hole] = array[parent];
+                percolateUpMax(parent, x);
+            }
+            else
+            {
+                percolateUpMin(hole, x);
+            }
+        }
+        else
+        {
+            if (x < array[parent])
+            {
+                array[hole] = array[parent];
+                percolateUpMin(parent, x);
+            }
+            else
+            {
+                percolateUpMax(hole, x);
+            }
+        }
+    }
+
+    /**
+     * Deletes the smallest value
+     *
+     * @return The value removed
+     */
+    public long deleteMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return removeAt(0);
+    }
+
+    /**
+     * Deletes the largest value
+     *
+     * @return The value removed
+     */
+    public long deleteMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return removeAt(maxIndex());
+    }
+
+    /**
+     * Finds the smallest value
+     *
+     * @return The smallest value
+     */
+    public long findMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return array[0];
+    }
+
+    /**
+     * Finds the largest value
+     *
+     * @return The largest value
+     */
+    public long findMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return array[maxIndex()];
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return The number of items
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values in the queue. The heap does not
+     * keep equal values together, so this sorts a copy and counts the runs;
+     * it takes O(n log n) time
+     *
+     * @return The number of distinct values
+     */
+    public int distinctSize()
+    {
+        long[] sorted = sorted();
+
+        int runs = size == 0 ? 0 : 1;
+        for (int i = 1; i < size; i++)
+        {
+            if (sorted[i - 1] != sorted[i])
+            {
+                ++runs;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Prints the queue in sorted order
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        if (isEmpty())
+        {
+            return "[]";
+        }
+
+        long[] sorted = sorted();
+
+        StringBuilder sb = new StringBuilder("[ ");
+        for (long x : sorted)
+        {
+            sb.append(x);
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+
+    /**
+     * Returns a sorted copy of the values
+     *
+     * @return The values in ascending order
+     */
+    long[] sorted()
+    {
+        long[] sorted = Arrays.copyOf(array, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Checks whether an index is on a min level (even depth)
+     *
+     * @param i The index
+     * @return True if the index is on a min level
+     */
+    private static boolean isMinLevel(int i)
+    {
+        return ((31 - Integer.numberOfLeadingZeros(i + 1)) & 1) == 0;
+    }
+
+    /**
+     * Finds the index of the largest value. Only valid when not empty
+     *
+     * @return The index of the largest value
+     */
+    private int maxIndex()
+    {
+        if (size == 1)
+        {
+            return 0;
+        }
+        if (size == 2 || array[1] >= array[2])
+        {
+            return 1;
+        }
+        return 2;
+    }
+
+    /**
+     * Removes the value at an index by moving the last value into its place
+     *
+     * @param i The index to remove
+     * @return The removed value
+     */
+    private long removeAt(int i)
+    {
+        long rem = array[i];
+        long last = array[--size];
+
+        if (i < size)
+        {
+            array[i] = last;
+            percolateDown(i);
+        }
+
+        return rem;
+    }
+
+    /**
+     * Moves a value down the heap, using the rule for its level
+     *
+     * @param i The index of the value
+     */
+    private void percolateDown(int i)
+    {
+        if (isMinLevel(i))
+        {
+            percolateDownMin(i);
+        }
+        else
+        {
+            percolateDownMax(i);
+        }
+    }
+
+    /**
+     * Moves a value up through the min levels until it is no smaller than
+     * its grandparent
+     *
+     * @param hole The index being filled
+     * @param x The value being placed
+     */
+    private void percolateUpMin(int hole, long x)
+    {
+        for (; hole > 2 && x < array[(hole - 3) / 4]; hole = (hole - 3) / 4)
+        {
+            array[hole] = array[(hole - 3) / 4];
+        }
+        array[hole] = x;
+    }
+
+    /**
+     * Moves a value up through the max levels until it is no larger than
+     * its grandparent
+     *
+     * @param hole The index being filled
+     * @param x The value being placed
+     */
+    private void percolateUpMax(int hole, long x)
+    {
+        for (; hole > 2 && x > array[(hole - 3) / 4]; hole = (hole - 3) / 4)
+        {
+            array[hole] = array[(hole - 3) / 4];
+        }
+        array[hole] = x;
+    }
+
+    /**
+     * Moves a value on a min level down until heap order is restored
+     *
+     * @param i The index of the value
+     */
+    private void percolateDownMin(int i)
+    {
+        for (int child = 2 * i + 1; child < size; child = 2 * i + 1)
+        {
+            //Find the smallest among the children and grandchildren
+            int m = child;
+            if (child + 1 < size && array[child + 1] < array[m])
+            {
+                m = child + 1;
+            }
+            int end = Math.min(4 * i + 7, size);
+            for (int g = 4 * i + 3; g < end; g++)
+            {
+                if (array[g] < array[m])
+                {
+                    m = g;
+                }
+            }
+
+            if (array[m] >= array[i])
+            {
+                return;
+            }
+
+            swap(i, m);
+            if (m <= child + 1)
+            {
+                return;
+            }
+
+            int parent = (m - 1) / 2;
+            if (array[m] > array[parent])
+            {
+                swap(m, parent);
+            }
+            i = m;
+        }
+    }
+
+    /**
+     * Moves a value on a max level down until heap order is restored
+     *
+     * @param i The index of the value
+     */
+    private void percolateDownMax(int i)
+    {
+        for (int child = 2 * i + 1; child < size; child = 2 * i + 1)
+        {
+            //Find the largest among the children and grandchildren
+            int m = child;
+            if (child + 1 < size && array[child + 1] > array[m])
+            {
+                m = child + 1;
+            }
+            int end = Math.min(4 * i + 7, size);
+            for (int g = 4 * i + 3; g < end; g++)
+            {
+                if (array[g] > array[m])
+                {
+                    m = g;
+                }
+            }
+
+            if (array[m] <= array[i])
+            {
+                return;
+            }
+
+            swap(i, m);
+            if (m <= child + 1)
+            {
+                return;
+            }
+
+            int parent = (m - 1) / 2;
+            if (array[m] < array[parent])
+            {
+                swap(m, parent);
+            }
+            i = m;
+        }
+    }
+
+    /**
+     * Swaps two values in the heap array
+     *
+     * @param i The first index
+     * @param j The second index
+     */
+    private void swap(int i, int j)
+    {
+        long tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
@@ -0,0 +1,583 @@
+package cop3530;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class implements a blocking double ended priority queue using a
+ * min-max heap guarded by one lock. Consumers park on a condition until data
+ * arrives, and producers park until there is room when a capacity is given
+ *
+ * @author David Romero PID: 3624439
+ */
+public class MinMaxHeapBlockingDoubleEndedPriorityQueue<AnyType> implements
+        BlockingDoubleEndedPriorityQueue<AnyType>
+{
+    private final MinMaxHeapDoubleEndedPriorityQueue<AnyType> heap;//The data
+    private final int capacity;             //Most items the queue can hold
+    private int size = 0;                   //Number of items in the queue
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Constructs an unbounded queue
+     */
+    public MinMaxHeapBlockingDoubleEndedPriorityQueue()
+    {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a queue that holds at most capacity items
+     *
+     * @param capacity The most items the queue can hold
+     */
+    public MinMaxHeapBlockingDoubleEndedPriorityQueue(int capacity)
+    {
+        this(null, capacity);
+    }
+
+    /**
+     * Constructs an unbounded queue that accepts a different comparator
+     *
+     * @param c Comparator that will be used
+     */
+    public MinMaxHeapBlockingDoubleEndedPriorityQueue(
+            Comparator<? super AnyType> c)
+    {
+        this(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a queue that accepts a different comparator and holds at
+     * most capacity items
+     *
+     * @param c Comparator that will be used
+     * @param capacity The most items the queue can hold
+     */
+    public MinMaxHeapBlockingDoubleEndedPriorityQueue(
+            Comparator<? super AnyType> c, int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        heap = new MinMaxHeapDoubleEndedPriorityQueue<>(c);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Empties the queue and wakes up any waiting producers
+     */
+    @Override
+    public void makeEmpty()
+    {
+        lock.lock();
+        try
+        {
+            heap.makeEmpty();
+            size = 0;
+            notFull.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds data to the queue without waiting
+     *
+     * @param x The data to be added
+     * @throws IllegalStateException If the queue is full
+     */
+    @Override
+    public void add(AnyType x)
+    {
+        lock.lock();
+        try
+        {
+            if (size == capacity)
+            {
+                throw new IllegalStateException("Queue full");
+            }
+            enqueue(x);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds data to the queue, waiting for room if it is full
+     *
+     * @param x The data to be added
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Override
+    public void put(AnyType x) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            while (size == capacity)
+            {
+                notFull.await();
+            }
+            enqueue(x);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds data to the queue, waiting up to a timeout for room if it is full
+     *
+     * @param x The data to be added
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return True if the data was added, false if the time ran out
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Override
+    public boolean offer(AnyType x, long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try
+        {
+            while (size == capacity)
+            {
+                if (nanos <= 0)
+                {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(x);
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the smallest value without waiting
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        lock.lock();
+        try
+        {
+            return dequeue(true);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the largest value without waiting
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        lock.lock();
+        try
+        {
+            return dequeue(false);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes up to k of the smallest values without waiting. The lock is
+     * held for the whole batch, so another consumer cannot empty the queue
+     * part way through
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMin(int k, Collection<? super AnyType> out)
+    {
+        return drain(true, out, k);
+    }
+
+    /**
+     * Deletes up to k of the largest values without waiting. The lock is
+     * held for the whole batch, so another consumer cannot empty the queue
+     * part way through
+     *
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMax(int k, Collection<? super AnyType> out)
+    {
+        return drain(false, out, k);
+    }
+
+    /**
+     * Deletes the smallest value, waiting for data if the queue is empty
+     *
+     * @return The value removed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Override
+    public AnyType takeMin() throws InterruptedException
+    {
+        return take(true);
+    }
+
+    /**
+     * Deletes the largest value, waiting for data if the queue is empty
+     *
+     * @return The value removed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Override
+    public AnyType takeMax() throws InterruptedException
+    {
+        return take(false);
+    }
+
+    /**
+     * Deletes the smallest value, waiting up to a timeout for data
+     *
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return The value removed, or null if the time ran out
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Override
+    public AnyType pollMin(long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        return poll(true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Deletes the largest value, waiting up to a timeout for data
+     *
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return The value removed, or null if the time ran out
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Override
+    public AnyType pollMax(long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        return poll(false, unit.toNanos(timeout));
+    }
+
+    /**
+     * Moves up to maxElements of the smallest values into a collection, in
+     * ascending order, without waiting
+     *
+     * @param c The collection to add to
+     * @param maxElements The most values to move
+     * @return The number of values moved
+     */
+    @Override
+    public int drainMinTo(Collection<? super AnyType> c, int maxElements)
+    {
+        return drain(true, c, maxElements);
+    }
+
+    /**
+     * Moves up to maxElements of the largest values into a collection, in
+     * descending order, without waiting
+     *
+     * @param c The collection to add to
+     * @param maxElements The most values to move
+     * @return The number of values moved
+     */
+    @Override
+    public int drainMaxTo(Collection<? super AnyType> c, int maxElements)
+    {
+        return drain(false, c, maxElements);
+    }
+
+    /**
+     * Finds the smallest value
+     *
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        lock.lock();
+        try
+        {
+            return heap.findMin();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the largest value
+     *
+     * @return The largest value
+     */
+    @Override
+    public AnyType findMax()
+    {
+        lock.lock();
+        try
+        {
+            return heap.findMax();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        lock.lock();
+        try
+        {
+            return size == 0;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of items in the queue
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        lock.lock();
+        try
+        {
+            return size;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct values in the queue. Holds the lock
+     * while the heap counts them in O(n log n) time
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        lock.lock();
+        try
+        {
+            return heap.distinctSize();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the comparator that orders the queue. It never changes, so the
+     * lock is not needed
+     *
+     * @return The comparator, natural ordering if none was given
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return heap.comparator();
+    }
+
+    /**
+     * Returns how many more items can be added without waiting
+     *
+     * @return The remaining capacity
+     */
+    @Override
+    public int remainingCapacity()
+    {
+        lock.lock();
+        try
+        {
+            return capacity - size;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prints the queue in sorted order
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        lock.lock();
+        try
+        {
+            return heap.toString();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds to the heap and wakes up one consumer. Lock must be held
+     *
+     * @param x The data to be added
+     */
+    private void enqueue(AnyType x)
+    {
+        heap.add(x);
+        ++size;
+        notEmpty.signal();
+    }
+
+    /**
+     * Removes from one end of the heap and wakes up one producer. Lock must
+     * be held
+     *
+     * @param min True to remove the smallest, false for the largest
+     * @return The value removed
+     */
+    private AnyType dequeue(boolean min)
+    {
+        AnyType rem = min ? heap.deleteMin() : heap.deleteMax();
+        --size;
+        notFull.signal();
+        return rem;
+    }
+
+    /**
+     * Waits until there is data and removes from one end
+     *
+     * @param min True to remove the smallest, false for the largest
+     * @return The value removed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private AnyType take(boolean min) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            while (size == 0)
+            {
+                notEmpty.await();
+            }
+            return dequeue(min);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to a timeout for data and removes from one end
+     *
+     * @param min True to remove the smallest, false for the largest
+     * @param nanos How long to wait in nanoseconds
+     * @return The value removed, or null if the time ran out
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private AnyType poll(boolean min, long nanos) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            while (size == 0)
+            {
+                if (nanos <= 0)
+                {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue(min);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves values from one end into a collection
+     *
+     * @param min True to take the smallest, false for the largest
+     * @param c The collection to add to
+     * @param maxElements The most values to move
+     * @return The number of values moved
+     */
+    private int drain(boolean min, Collection<? super AnyType> c,
+            int maxElements)
+    {
+        lock.lock();
+        try
+        {
+            int n = 0;
+            for (; n < maxElements && size > 0; n++)
+            {
+                c.add(min ? heap.deleteMin() : heap.deleteMax());
+                --size;
+            }
+            if (n > 0)
+            {
+                notFull.signalAll();
+            }
+            return n;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+}
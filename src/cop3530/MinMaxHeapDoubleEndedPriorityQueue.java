@@ -0,0 +1,925 @@
+package cop3530;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class implements a double ended priority queue using a min-max heap
+ * stored in a single array. Even levels (starting with the root) are min
+ * levels and odd levels are max levels, so the smallest item is at the root
+ * and the largest is one of the root's children. Items added with insert get
+ * a handle that tracks their index as they move, so they can be removed or
+ * changed later
+ *
+ * @author David Romero PID: 3624439
+ */
+public class MinMaxHeapDoubleEndedPriorityQueue<AnyType> implements
+        AddressableDoubleEndedPriorityQueue<AnyType>
+{
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private final Comparator<? super AnyType> cmp;//Comparator for the data
+    private AnyType[] array;                //The heap array
+    private int size = 0;                   //Number of items in the heap
+    private HeapHandle<AnyType>[] handles;  //Handle of each index, if any
+
+    /**
+     * A handle that knows where its item is in the heap array
+     *
+     * @param <AnyType> Generic class; handle can take any type of data
+     */
+    private static class HeapHandle<AnyType> implements Handle<AnyType>
+    {
+        private AnyType data;               //The data
+        private int index;                  //Index of the data, -1 if gone
+
+        /**
+         * Creates a handle
+         *
+         * @param d The data
+         */
+        public HeapHandle(AnyType d)
+        {
+            data = d;
+        }
+
+        /**
+         * Returns the data this handle refers to
+         *
+         * @return The data
+         */
+        @Override
+        public AnyType getValue()
+        {
+            return data;
+        }
+    }
+
+    /**
+     * Constructs an empty heap
+     */
+    public MinMaxHeapDoubleEndedPriorityQueue()
+    {
+        this((Comparator<? super AnyType>) null);
+    }
+
+    /**
+     * Constructs an empty heap that accepts a different comparator
+     *
+     * @param c Comparator that will be used
+     */
+    @SuppressWarnings("unchecked")
+    public MinMaxHeapDoubleEndedPriorityQueue(Comparator<? super AnyType> c)
+    {
+        cmp = NaturalOrder.orNatural(c);
+        array = (AnyType[]) new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Constructs a heap from an array of items in linear time
+     *
+     * @param items The items to put in the heap
+     */
+    public MinMaxHeapDoubleEndedPriorityQueue(AnyType[] items)
+    {
+        this(items, null);
+    }
+
+    /**
+     * Constructs a heap from an array of items in linear time, using a
+     * different comparator
+     *
+     * @param items The items to put in the heap
+     * @param c Comparator that will be used
+     */
+    @SuppressWarnings("unchecked")
+    public MinMaxHeapDoubleEndedPriorityQueue(AnyType[] items,
+            Comparator<? super AnyType> c)
+    {
+        cmp = NaturalOrder.orNatural(c);
+        size = items.length;
+        array = (AnyType[]) new Object[Math.max(DEFAULT_CAPACITY, size)];
+        System.arraycopy(items, 0, array, 0, size);
+        buildHeap();
+    }
+
+    /**
+     * Compares two pieces of data with the comparator picked at construction
+     * (natural ordering if none was given).
+     *
+     * @param lhs The first piece data being used to compare
+     * @param rhs The second piece of data being used to compare
+     * @return -1 if lhs is less than rhs, 1 if it's greater, 0 if it is equal
+     */
+    public int myCompare(AnyType lhs, AnyType rhs)
+    {
+        return cmp.compare(lhs, rhs);
+    }
+
+    /**
+     * Returns the comparator that orders the queue
+     *
+     * @return The comparator, natural ordering if none was given
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return cmp;
+    }
+
+    /**
+     * Empties the heap
+     */
+    @Override
+    public void makeEmpty()
+    {
+        Arrays.fill(array, 0, size, null);
+        if (handles != null)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                setHandle(i, null);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Adds data to the heap
+     *
+     * @param x The data to be added
+     */
+    @Override
+    public void add(AnyType x)
+    {
+        if (size == array.length)
+        {
+            grow(array.length * 2 + 1);
+        }
+
+        place(size++, x, null);
+    }
+
+    /**
+     * Adds data to the heap and returns a handle that follows it around the
+     * array, which can be passed to remove or changeKey later
+     *
+     * @param x The data to be added
+     * @return The handle for the data
+     */
+    @Override
+    public Handle<AnyType> insert(AnyType x)
+    {
+        if (handles == null)
+        {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            HeapHandle<AnyType>[] created = new HeapHandle[array.length];
+            handles = created;
+        }
+        if (size == array.length)
+        {
+            grow(array.length * 2 + 1);
+        }
+
+        HeapHandle<AnyType> h = new HeapHandle<>(x);
+        place(size++, x, h);
+        return h;
+    }
+
+    /**
+     * Checks whether the heap holds an item that compares equal to x. The
+     * heap is not ordered enough to search, so this is a scan
+     *
+     * @param x The item to look for
+     * @return True if an equal item is in the heap
+     */
+    @Override
+    public boolean contains(AnyType x)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (myCompare(x, array[i]) == 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the item a handle refers to
+     *
+     * @param h A handle returned by insert
+     * @return True if the item was removed, false if it was no longer in the
+     * heap
+     */
+    @Override
+    public boolean remove(Handle<AnyType> h)
+    {
+        int i = indexOf(h);
+        if (i < 0)
+        {
+            return false;
+        }
+
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Changes the value of the item a handle refers to and moves it up or
+     * down to its new place. The handle stays valid
+     *
+     * @param h A handle returned by insert
+     * @param newValue The new value
+     * @throws IllegalArgumentException If the item is no longer in the heap
+     */
+    @Override
+    public void changeKey(Handle<AnyType> h, AnyType newValue)
+    {
+        int i = indexOf(h);
+        if (i < 0)
+        {
+            throw new IllegalArgumentException("Handle is not in the queue");
+        }
+
+        HeapHandle<AnyType> hh = handles[i];
+        hh.data = newValue;
+        place(i, newValue, hh);
+    }
+
+    /**
+     * Finds the index a handle refers to
+     *
+     * @param h The handle
+     * @return The index, or -1 if the item is no longer in the heap
+     */
+    private int indexOf(Handle<AnyType> h)
+    {
+        if (!(h instanceof HeapHandle))
+        {
+            throw new IllegalArgumentException("Not a handle of this queue");
+        }
+
+        int i = ((HeapHandle<AnyType>) h).index;
+        return handles != null && i >= 0 && i < size && handles[i] == h
+                ? i : -1;
+    }
+
+    /**
+     * Adds every item in a collection. See addAll(AnyType[])
+     *
+     * @param items The items to be added
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addAll(Collection<? extends AnyType> items)
+    {
+        addAll((AnyType[]) items.toArray());
+    }
+
+    /**
+     * Adds every item in an array. Small batches are added one at a time;
+     * larger ones are appended and the whole heap is rebuilt in linear time
+     *
+     * @param items The items to be added
+     */
+    @Override
+    public void addAll(AnyType[] items)
+    {
+        if (items.length < size)
+        {
+            for (AnyType x : items)
+            {
+                add(x);
+            }
+            return;
+        }
+
+        if (size + items.length > array.length)
+        {
+            grow(size + items.length);
+        }
+        System.arraycopy(items, 0, array, size, items.length);
+        size += items.length;
+        buildHeap();
+    }
+
+    /**
+     * Deletes the smallest value in the heap
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return removeAt(0);
+    }
+
+    /**
+     * Deletes the largest value in the heap
+     *
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return removeAt(maxIndex());
+    }
+
+    /**
+     * Finds the smallest value in the heap
+     *
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return array[0];
+    }
+
+    /**
+     * Finds the largest value in the heap
+     *
+     * @return The largest value
+     */
+    @Override
+    public AnyType findMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return array[maxIndex()];
+    }
+
+    /**
+     * Returns the number of items in the heap
+     *
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values in the heap. The heap does not
+     * keep equal items together, so this sorts a copy and counts the runs;
+     * it takes O(n log n) time
+     *
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        AnyType[] sorted = Arrays.copyOf(array, size);
+        Arrays.sort(sorted, cmp);
+
+        int runs = size == 0 ? 0 : 1;
+        for (int i = 1; i < size; i++)
+        {
+            if (myCompare(sorted[i - 1], sorted[i]) != 0)
+            {
+                ++runs;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Checks if the heap is empty
+     *
+     * @return Boolean showing whether the heap is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Prints the heap in sorted order
+     *
+     * @return The heap
+     */
+    @Override
+    public String toString()
+    {
+        if (isEmpty())
+        {
+            return "[]";
+        }
+
+        StringBuilder sb = new StringBuilder("[ ");
+        for (Iterator<AnyType> itr = sortedItems(); itr.hasNext();)
+        {
+            sb.append(itr.next());
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+
+    /**
+     * Prints the queue to an Appendable one item at a time, in the same
+     * format as toString, so a large queue is never held as one String.
+     * The heap is not kept in order, so this sorts a copy of the item
+     * references first
+     *
+     * @param out Where the text goes
+     * @throws IOException If out fails to take the text
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        QueueWriter.write(sortedItems(), out);
+    }
+
+    /**
+     * Prints the queue as UTF-8 to a channel, in the same format as
+     * toString. Only a small fixed buffer is held between writes. The
+     * channel is left open
+     *
+     * @param ch Where the bytes go
+     * @throws IOException If the channel fails to take the bytes
+     */
+    public void writeTo(WritableByteChannel ch) throws IOException
+    {
+        QueueWriter.write(sortedItems(), ch);
+    }
+
+    /**
+     * Describes the queue in one short line for logs: its size, smallest
+     * and largest values, and the first n items in ascending order. Only
+     * the n + 1 smallest items are sorted, not the whole heap
+     *
+     * @param n The most items to print
+     * @return The summary
+     */
+    public String summary(int n)
+    {
+        return QueueWriter.summary(this, smallest(n + 1), n);
+    }
+
+    /**
+     * Writes the queue to a snapshot file in ascending order. The heap is
+     * not kept in order, so a copy of the item references is sorted first
+     *
+     * @param file The file to write, replaced if it exists
+     * @param codec Encodes the items
+     * @throws IOException If the file cannot be written
+     */
+    public void writeSnapshot(Path file, SnapshotCodec<? super AnyType> codec)
+            throws IOException
+    {
+        QueueSnapshot.write(file, size, sortedItems(), codec);
+    }
+
+    /**
+     * Replaces the contents of the queue with a snapshot file. The file is
+     * memory mapped and the items come back in one array that is heapified
+     * in linear time
+     *
+     * @param file The file to read
+     * @param codec Decodes the items
+     * @throws IOException If the file cannot be read or is not a snapshot
+     */
+    public void readSnapshot(Path file, SnapshotCodec<? extends AnyType> codec)
+            throws IOException
+    {
+        AnyType[] items = QueueSnapshot.read(file, codec);
+        makeEmpty();
+        addAll(items);
+    }
+
+    /**
+     * Sorts a copy of the item references
+     *
+     * @return The items in ascending order
+     */
+    private Iterator<AnyType> sortedItems()
+    {
+        AnyType[] sorted = Arrays.copyOf(array, size);
+        Arrays.sort(sorted, cmp);
+        return Arrays.asList(sorted).iterator();
+    }
+
+    /**
+     * Finds the k smallest items with a bounded max heap, in O(n log k) time
+     * and O(k) space
+     *
+     * @param k The most items to find
+     * @return The items found in ascending order
+     */
+    private Iterator<AnyType> smallest(int k)
+    {
+        PriorityQueue<AnyType> top = new PriorityQueue<>(k,
+                new Comparator<AnyType>()
+        {
+            @Override
+            public int compare(AnyType lhs, AnyType rhs)
+            {
+                return myCompare(rhs, lhs);
+            }
+        });
+
+        for (int i = 0; i < size; i++)
+        {
+            if (top.size() < k)
+            {
+                top.add(array[i]);
+            }
+            else if (myCompare(array[i], top.peek()) < 0)
+            {
+                top.poll();
+                top.add(array[i]);
+            }
+        }
+
+        List<AnyType> found = new ArrayList<>(top);
+        found.sort(cmp);
+        return found.iterator();
+    }
+
+    /**
+     * Checks whether an index is on a min level (even depth)
+     *
+     * @param i The index
+     * @return True if the index is on a min level
+     */
+    private static boolean isMinLevel(int i)
+    {
+        return ((31 - Integer.numberOfLeadingZeros(i + 1)) & 1) == 0;
+    }
+
+    /**
+     * Finds the index of the largest item. Only valid when not empty
+     *
+     * @return The index of the largest item
+     */
+    private int maxIndex()
+    {
+        if (size == 1)
+        {
+            return 0;
+        }
+        if (size == 2 || myCompare(array[1], array[2]) >= 0)
+        {
+            return 1;
+        }
+        return 2;
+    }
+
+    /**
+     * Removes the item at an index by moving the last item into its place
+     *
+     * @param i The index to remove
+     * @return The removed item
+     */
+    private AnyType removeAt(int i)
+    {
+        AnyType rem = array[i];
+        AnyType last = array[--size];
+        array[size] = null;
+        HeapHandle<AnyType> h = null;
+        if (handles != null)
+        {
+            if (handles[i] != null)
+            {
+                handles[i].index = -1;
+            }
+            h = handles[size];
+            setHandle(size, null);
+        }
+
+        //The last item can only need to move up when the hole is below the
+        //root's children; the root is smaller than everything
+        if (i < size && i <= 2)
+        {
+            setItem(i, last, h);
+            percolateDown(i);
+        }
+        else if (i < size)
+        {
+            place(i, last, h);
+        }
+
+        return rem;
+    }
+
+    /**
+     * Puts an item into a hole and moves it to where it belongs. Decides
+     * which kind of level the item belongs to by comparing it with the parent
+     * of the hole, bubbles it up among its grandparents and finally lets
+     * whatever ended up in the hole sink
+     *
+     * @param hole The index being filled
+     * @param x The item being placed
+     * @param h The handle of the item, may be null
+     */
+    private void place(int hole, AnyType x, HeapHandle<AnyType> h)
+    {
+        if (hole > 0)
+        {
+            int parent = (hole - 1) / 2;
+            int c = myCompare(x, array[parent]);
+            if (isMinLevel(hole) ? c > 0 : c < 0)
+            {
+                move(parent, hole);
+                if (isMinLevel(hole))
+                {
+                    percolateUpMax(parent, x, h);
+                }
+                else
+                {
+                    percolateUpMin(parent, x, h);
+                }
+                percolateDown(hole);
+                return;
+            }
+        }
+
+        if (isMinLevel(hole))
+        {
+            percolateUpMin(hole, x, h);
+        }
+        else
+        {
+            percolateUpMax(hole, x, h);
+        }
+        percolateDown(hole);
+    }
+
+    /**
+     * Grows the heap array (and the handle array if there is one)
+     *
+     * @param capacity The new length
+     */
+    private void grow(int capacity)
+    {
+        array = Arrays.copyOf(array, capacity);
+        if (handles != null)
+        {
+            handles = Arrays.copyOf(handles, capacity);
+        }
+    }
+
+    /**
+     * Stores an item and its handle at an index
+     *
+     * @param i The index
+     * @param x The item
+     * @param h The handle of the item, may be null
+     */
+    private void setItem(int i, AnyType x, HeapHandle<AnyType> h)
+    {
+        array[i] = x;
+        if (handles != null)
+        {
+            setHandle(i, h);
+        }
+    }
+
+    /**
+     * Stores a handle at an index and tells it where it is
+     *
+     * @param i The index
+     * @param h The handle, may be null
+     */
+    private void setHandle(int i, HeapHandle<AnyType> h)
+    {
+        handles[i] = h;
+        if (h != null)
+        {
+            h.index = i;
+        }
+    }
+
+    /**
+     * Moves an item and its handle from one index to another
+     *
+     * @param from The index the item is at
+     * @param to The index it moves to
+     */
+    private void move(int from, int to)
+    {
+        array[to] = array[from];
+        if (handles != null)
+        {
+            setHandle(to, handles[from]);
+        }
+    }
+
+    /**
+     * Restores the heap order for the whole array in linear time
+     */
+    private void buildHeap()
+    {
+        for (int i = size / 2 - 1; i >= 0; i--)
+        {
+            percolateDown(i);
+        }
+    }
+
+    /**
+     * Moves an item down the heap, using the rule for its level
+     *
+     * @param i The index of the item
+     */
+    private void percolateDown(int i)
+    {
+        if (isMinLevel(i))
+        {
+            percolateDownMin(i);
+        }
+        else
+        {
+            percolateDownMax(i);
+        }
+    }
+
+    /**
+     * Moves an item up through the min levels (grandparents) until it is no
+     * smaller than its grandparent
+     *
+     * @param hole The index being filled
+     * @param x The item being placed
+     * @param h The handle of the item, may be null
+     */
+    private void percolateUpMin(int hole, AnyType x, HeapHandle<AnyType> h)
+    {
+        for (; hole > 2 && myCompare(x, array[(hole - 3) / 4]) < 0;
+                hole = (hole - 3) / 4)
+        {
+            move((hole - 3) / 4, hole);
+        }
+        setItem(hole, x, h);
+    }
+
+    /**
+     * Moves an item up through the max levels (grandparents) until it is no
+     * larger than its grandparent
+     *
+     * @param hole The index being filled
+     * @param x The item being placed
+     * @param h The handle of the item, may be null
+     */
+    private void percolateUpMax(int hole, AnyType x, HeapHandle<AnyType> h)
+    {
+        for (; hole > 2 && myCompare(x, array[(hole - 3) / 4]) > 0;
+                hole = (hole - 3) / 4)
+        {
+            move((hole - 3) / 4, hole);
+        }
+        setItem(hole, x, h);
+    }
+
+    /**
+     * Finds the smallest or largest among the children and grandchildren of
+     * an index
+     *
+     * @param i The index
+     * @param min True for the smallest, false for the largest
+     * @return The index of the extreme descendant, or -1 if there are none
+     */
+    private int extremeDescendant(int i, boolean min)
+    {
+        int child = 2 * i + 1;
+        if (child >= size)
+        {
+            return -1;
+        }
+
+        int best = child;
+        int sign = min ? 1 : -1;
+
+        if (child + 1 < size
+                && sign * myCompare(array[best], array[child + 1]) > 0)
+        {
+            best = child + 1;
+        }
+
+        int grandchild = 2 * child + 1;
+        int end = Math.min(grandchild + 4, size);
+        for (int g = grandchild; g < end; g++)
+        {
+            if (sign * myCompare(array[best], array[g]) > 0)
+            {
+                best = g;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Moves an item on a min level down until heap order is restored
+     *
+     * @param i The index of the item
+     */
+    private void percolateDownMin(int i)
+    {
+        int m;
+        while ((m = extremeDescendant(i, true)) >= 0)
+        {
+            if (myCompare(array[m], array[i]) >= 0)
+            {
+                return;
+            }
+
+            swap(i, m);
+
+            //A child is a leaf of this step; nothing more below it to fix
+            if (m <= 2 * i + 2)
+            {
+                return;
+            }
+
+            //The item moved to a grandchild may now be larger than the max
+            //level item above it
+            int parent = (m - 1) / 2;
+            if (myCompare(array[m], array[parent]) > 0)
+            {
+                swap(m, parent);
+            }
+            i = m;
+        }
+    }
+
+    /**
+     * Moves an item on a max level down until heap order is restored
+     *
+     * @param i The index of the item
+     */
+    private void percolateDownMax(int i)
+    {
+        int m;
+        while ((m = extremeDescendant(i, false)) >= 0)
+        {
+            if (myCompare(array[m], array[i]) <= 0)
+            {
+                return;
+            }
+
+            swap(i, m);
+
+            if (m <= 2 * i + 2)
+            {
+                return;
+            }
+
+            int parent = (m - 1) / 2;
+            if (myCompare(array[m], array[parent]) < 0)
+            {
+                swap(m, parent);
+            }
+            i = m;
+        }
+    }
+
+    /**
+     * Swaps two items in the heap array
+     *
+     * @param i The first index
+     * @param j The second index
+     */
+    private void swap(int i, int j)
+    {
+        AnyType tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+
+        if (handles != null)
+        {
+            HeapHandle<AnyType> h = handles[i];
+            setHandle(i, handles[j]);
+            setHandle(j, h);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package cop3530;
+
+import java.util.Comparator;
+
+/**
+ * Comparator that uses the natural ordering of Comparable data. The queues
+ * swap a null comparator for this one when they are constructed, so their
+ * compare calls never have to check for null or pick a path per call
+ *
+ * @author David Romero PID: 3624439
+ */
+final class NaturalOrder implements Comparator<Object>
+{
+    static final NaturalOrder INSTANCE = new NaturalOrder();
+
+    private NaturalOrder()
+    {
+    }
+
+    /**
+     * Returns the given comparator, or natural ordering if it is null
+     *
+     * @param c The comparator passed to a queue, may be null
+     * @return The comparator the queue should use
+     */
+    static <AnyType> Comparator<? super AnyType> orNatural(
+            Comparator<? super AnyType> c)
+    {
+        return c != null ? c : INSTANCE;
+    }
+
+    /**
+     * Compares two pieces of data by casting the first to Comparable
+     *
+     * @param lhs The first piece data being used to compare
+     * @param rhs The second piece of data being used to compare
+     * @return -1 if lhs is less than rhs, 1 if it's greater, 0 if it is equal
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int compare(Object lhs, Object rhs)
+    {
+        return ((Comparable<Object>) lhs).compareTo(rhs);
+    }
+}
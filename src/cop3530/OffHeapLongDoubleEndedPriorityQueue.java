@@ -0,0 +1,595 @@
+package cop3530;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Double ended priority queue of fixed size records, each a long priority
+ * and a long payload, kept outside the Java heap. Uses the same min-max heap
+ * layout as LongDoubleEndedPriorityQueue, but the heap array is spread over
+ * direct ByteBuffers (chunks) of 16 byte records. Adding and deleting
+ * allocate nothing on the Java heap, so the garbage collector never sees the
+ * records however many there are. Records are ordered by priority, and like
+ * the other queues, findMin and deleteMin agree on what they return: the
+ * payload of the record. findMinPriority and findMaxPriority give the
+ * priorities
+ *
+ * Growth policy: the queue grows one chunk at a time, and chunks are never
+ * copied or moved, so growing costs one allocation and the queue can go past
+ * the 2GB limit of a single buffer. A chunk holds at most 2^26 records (1GB),
+ * so every byte offset inside one fits in an int. A maximum capacity can be
+ * set, past which add throws. trimToSize gives back chunks that are no
+ * longer needed. close drops every chunk; the JVM returns direct memory once
+ * the buffers are collected
+ *
+ * @author David Romero PID: 3624439
+ */
+public class OffHeapLongDoubleEndedPriorityQueue implements AutoCloseable
+{
+    private static final int RECORD = 16;   //Bytes per record
+    private static final int PAYLOAD = 8;   //Offset of the payload in one
+    private static final int DEFAULT_CHUNK = 1 << 16;//Records per chunk, 1MB
+    private static final int MAX_CHUNK = 1 << 26;//Largest chunk, 1GB
+
+    private final int chunkRecords;         //Records per chunk
+    private final int shift;                //log2 of chunkRecords
+    private final long mask;                //chunkRecords - 1
+    private final long maxCapacity;         //Most records the queue holds
+    private ByteBuffer[] chunks = new ByteBuffer[4];//The heap array
+    private int allocated = 0;              //Chunks in use
+    private long size = 0;                  //Number of records in the heap
+    private long limit = 0;                 //Records that fit right now
+    private boolean closed = false;         //True once close is called
+
+    /**
+     * Constructs an empty queue with 1MB chunks and no maximum capacity
+     */
+    public OffHeapLongDoubleEndedPriorityQueue()
+    {
+        this(DEFAULT_CHUNK, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs an empty queue with the given growth policy
+     *
+     * @param chunkRecords Records added per growth step, a power of two no
+     * larger than 2^26
+     * @param maxCapacity The most records the queue holds
+     */
+    public OffHeapLongDoubleEndedPriorityQueue(int chunkRecords,
+            long maxCapacity)
+    {
+        if (chunkRecords <= 0 || chunkRecords > MAX_CHUNK
+                || Integer.bitCount(chunkRecords) != 1)
+        {
+            throw new IllegalArgumentException(
+                    "Chunk size must be a power of two up to " + MAX_CHUNK);
+        }
+        if (maxCapacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.chunkRecords = chunkRecords;
+        this.shift = Integer.numberOfTrailingZeros(chunkRecords);
+        this.mask = chunkRecords - 1;
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * Empties the queue. The chunks are kept for reuse
+     */
+    public void makeEmpty()
+    {
+        size = 0;
+    }
+
+    /**
+     * Adds a record to the queue, growing by one chunk if it is full
+     *
+     * @param priority The priority the record is ordered by
+     * @param payload The data carried with it
+     * @throws IllegalStateException If the queue is closed or at its
+     * maximum capacity
+     */
+    public void add(long priority, long payload)
+    {
+        if (size == limit)
+        {
+            grow();
+        }
+
+        long hole = size++;
+        if (hole == 0)
+        {
+            set(0, priority, payload);
+            return;
+        }
+
+        long parent = (hole - 1) / 2;
+        if (isMinLevel(hole))
+        {
+            if (priority > priority(parent))
+            {
+                move(parent, hole);
+                percolateUpMax(parent, priority, payload);
+            }
+            else
+            {
+                percolateUpMin(hole, priority, payload);
+            }
+        }
+        else
+        {
+            if (priority < priority(parent))
+            {
+                move(parent, hole);
+                percolateUpMin(parent, priority, payload);
+            }
+            else
+            {
+                percolateUpMax(hole, priority, payload);
+            }
+        }
+    }
+
+    /**
+     * Deletes the record with the smallest priority
+     *
+     * @return The payload of the record removed
+     */
+    public long deleteMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return removeAt(0);
+    }
+
+    /**
+     * Deletes the record with the largest priority
+     *
+     * @return The payload of the record removed
+     */
+    public long deleteMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return removeAt(maxIndex());
+    }
+
+    /**
+     * Finds the record with the smallest priority, the one deleteMin would
+     * remove
+     *
+     * @return The payload of the record
+     */
+    public long findMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return payload(0);
+    }
+
+    /**
+     * Finds the smallest priority
+     *
+     * @return The smallest priority
+     */
+    public long findMinPriority()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return priority(0);
+    }
+
+    /**
+     * Finds the record with the largest priority, the one deleteMax would
+     * remove
+     *
+     * @return The payload of the record
+     */
+    public long findMax()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return payload(maxIndex());
+    }
+
+    /**
+     * Finds the largest priority
+     *
+     * @return The largest priority
+     */
+    public long findMaxPriority()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return priority(maxIndex());
+    }
+
+    /**
+     * Checks if the queue is empty
+     *
+     * @return Boolean showing whether the queue is empty or not
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of records in the queue
+     *
+     * @return The number of records
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns how many records fit before the queue has to grow
+     *
+     * @return The capacity
+     */
+    public long capacity()
+    {
+        return Math.min((long) allocated << shift, maxCapacity);
+    }
+
+    /**
+     * Gives back the chunks past the last record
+     */
+    public void trimToSize()
+    {
+        int needed = (int) ((size + mask) >>> shift);
+        for (int i = needed; i < allocated; i++)
+        {
+            chunks[i] = null;
+        }
+        allocated = needed;
+        limit = capacity();
+    }
+
+    /**
+     * Empties the queue and drops every chunk. Adding to a closed queue
+     * throws
+     */
+    @Override
+    public void close()
+    {
+        size = 0;
+        Arrays.fill(chunks, null);
+        allocated = 0;
+        limit = 0;
+        closed = true;
+    }
+
+    /**
+     * Prints the priorities in sorted order. Copies them onto the Java heap,
+     * so it is only meant for small queues
+     *
+     * @return The queue
+     */
+    @Override
+    public String toString()
+    {
+        if (isEmpty())
+        {
+            return "[]";
+        }
+
+        long[] sorted = new long[(int) Math.min(size, Integer.MAX_VALUE - 8)];
+        for (int i = 0; i < sorted.length; i++)
+        {
+            sorted[i] = priority(i);
+        }
+        Arrays.sort(sorted);
+
+        StringBuilder sb = new StringBuilder("[ ");
+        for (long x : sorted)
+        {
+            sb.append(x);
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+
+    /**
+     * Adds one chunk, following the growth policy
+     */
+    private void grow()
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Queue closed");
+        }
+        if (size >= maxCapacity)
+        {
+            throw new IllegalStateException("Queue full");
+        }
+
+        if (allocated == chunks.length)
+        {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        chunks[allocated++] = ByteBuffer.allocateDirect(chunkRecords * RECORD)
+                .order(ByteOrder.nativeOrder());
+        limit = capacity();
+    }
+
+    /**
+     * Returns the priority of the record at an index
+     *
+     * @param i The index
+     * @return The priority
+     */
+    private long priority(long i)
+    {
+        return chunks[(int) (i >>> shift)].getLong((int) (i & mask) * RECORD);
+    }
+
+    /**
+     * Returns the payload of the record at an index
+     *
+     * @param i The index
+     * @return The payload
+     */
+    private long payload(long i)
+    {
+        return chunks[(int) (i >>> shift)].getLong((int) (i & mask) * RECORD
+                + PAYLOAD);
+    }
+
+    /**
+     * Writes a record at an index
+     *
+     * @param i The index
+     * @param priority The priority
+     * @param payload The payload
+     */
+    private void set(long i, long priority, long payload)
+    {
+        ByteBuffer b = chunks[(int) (i >>> shift)];
+        int off = (int) (i & mask) * RECORD;
+        b.putLong(off, priority);
+        b.putLong(off + PAYLOAD, payload);
+    }
+
+    /**
+     * Copies the record at one index to another
+     *
+     * @param from The index copied
+     * @param to The index written
+     */
+    private void move(long from, long to)
+    {
+        set(to, priority(from), payload(from));
+    }
+
+    /**
+     * Checks whether an index is on a min level (even depth)
+     *
+     * @param i The index
+     * @return True if the index is on a min level
+     */
+    private static boolean isMinLevel(long i)
+    {
+        return ((63 - Long.numberOfLeadingZeros(i + 1)) & 1) == 0;
+    }
+
+    /**
+     * Finds the index of the largest priority. Only valid when not empty
+     *
+     * @return The index of the largest priority
+     */
+    private long maxIndex()
+    {
+        if (size == 1)
+        {
+            return 0;
+        }
+        if (size == 2 || priority(1) >= priority(2))
+        {
+            return 1;
+        }
+        return 2;
+    }
+
+    /**
+     * Removes the record at an index by moving the last record into its
+     * place
+     *
+     * @param i The index to remove
+     * @return The payload of the removed record
+     */
+    private long removeAt(long i)
+    {
+        long rem = payload(i);
+        --size;
+
+        if (i < size)
+        {
+            move(size, i);
+            percolateDown(i);
+        }
+
+        return rem;
+    }
+
+    /**
+     * Moves a record down the heap, using the rule for its level
+     *
+     * @param i The index of the record
+     */
+    private void percolateDown(long i)
+    {
+        if (isMinLevel(i))
+        {
+            percolateDownMin(i);
+        }
+        else
+        {
+            percolateDownMax(i);
+        }
+    }
+
+    /**
+     * Moves a record up through the min levels until it is no smaller than
+     * its grandparent
+     *
+     * @param hole The index being filled
+     * @param priority The priority of the record being placed
+     * @param payload The payload of the record being placed
+     */
+    private void percolateUpMin(long hole, long priority, long payload)
+    {
+        for (; hole > 2 && priority < priority((hole - 3) / 4);
+                hole = (hole - 3) / 4)
+        {
+            move((hole - 3) / 4, hole);
+        }
+        set(hole, priority, payload);
+    }
+
+    /**
+     * Moves a record up through the max levels until it is no larger than
+     * its grandparent
+     *
+     * @param hole The index being filled
+     * @param priority The priority of the record being placed
+     * @param payload The payload of the record being placed
+     */
+    private void percolateUpMax(long hole, long priority, long payload)
+    {
+        for (; hole > 2 && priority > priority((hole - 3) / 4);
+                hole = (hole - 3) / 4)
+        {
+            move((hole - 3) / 4, hole);
+        }
+        set(hole, priority, payload);
+    }
+
+    /**
+     * Moves a record on a min level down until heap order is restored
+     *
+     * @param i The index of the record
+     */
+    private void percolateDownMin(long i)
+    {
+        for (long child = 2 * i + 1; child < size; child = 2 * i + 1)
+        {
+            //Find the smallest among the children and grandchildren
+            long m = child;
+            if (child + 1 < size && priority(child + 1) < priority(m))
+            {
+                m = child + 1;
+            }
+            long end = Math.min(4 * i + 7, size);
+            for (long g = 4 * i + 3; g < end; g++)
+            {
+                if (priority(g) < priority(m))
+                {
+                    m = g;
+                }
+            }
+
+            if (priority(m) >= priority(i))
+            {
+                return;
+            }
+
+            swap(i, m);
+            if (m <= child + 1)
+            {
+                return;
+            }
+
+            long parent = (m - 1) / 2;
+            if (priority(m) > priority(parent))
+            {
+                swap(m, parent);
+            }
+            i = m;
+        }
+    }
+
+    /**
+     * Moves a record on a max level down until heap order is restored
+     *
+     * @param i The index of the record
+     */
+    private void percolateDownMax(long i)
+    {
+        for (long child = 2 * i + 1; child < size; child = 2 * i + 1)
+        {
+            //Find the largest among the children and grandchildren
+            long m = child;
+            if (child + 1 < size && priority(child + 1) > priority(m))
+            {
+                m = child + 1;
+            }
+            long end = Math.min(4 * i + 7, size);
+            for (long g = 4 * i + 3; g < end; g++)
+            {
+                if (priority(g) > priority(m))
+                {
+                    m = g;
+                }
+            }
+
+            if (priority(m) <= priority(i))
+            {
+                return;
+            }
+
+            swap(i, m);
+            if (m <= child + 1)
+            {
+                return;
+            }
+
+            long parent = (m - 1) / 2;
+            if (priority(m) < priority(parent))
+            {
+                swap(m, parent);
+            }
+            i = m;
+        }
+    }
+
+    /**
+     * Swaps two records in the heap
+     *
+     * @param i The first index
+     * @param j The second index
+     */
+    private void swap(long i, long j)
+    {
+        long p = priority(i);
+        long d = payload(i);
+        move(j, i);
+        set(j, p, d);
+    }
+}
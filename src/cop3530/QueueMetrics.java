@@ -0,0 +1,380 @@
+package cop3530;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operation counts, comparison counts and latency histograms for a queue
+ * wrapped in an InstrumentedDoubleEndedPriorityQueue. Comparisons are only
+ * counted if the wrapped queue was built with the comparator from
+ * comparator(); otherwise snapshots report them as -1. Recording can be
+ * switched off at any time, which leaves one volatile read per operation
+ *
+ * @author David Romero PID: 3624439
+ */
+public class QueueMetrics
+{
+    /**
+     * The operations that are counted and timed. ADD_ALL and the two batch
+     * deletes count every item in a batch but keep one latency sample per
+     * batch, so batches do not skew the latency of single adds and deletes
+     */
+    public enum Operation
+    {
+        ADD, ADD_ALL, DELETE_MIN, DELETE_MIN_BATCH, DELETE_MAX,
+        DELETE_MAX_BATCH, FIND_MIN, FIND_MAX, MAKE_EMPTY
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+    private final LatencyHistogram[] latencies
+            = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder comparisons = new LongAdder();
+    private volatile boolean enabled = true;//False skips all recording
+
+    /**
+     * Creates metrics with recording switched on
+     */
+    public QueueMetrics()
+    {
+        for (int i = 0; i < OPERATIONS.length; i++)
+        {
+            counts[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Checks whether recording is switched on
+     *
+     * @return True if operations are being recorded
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Switches recording on or off. What was recorded so far is kept
+     *
+     * @param enabled True to record operations
+     */
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Comparator that counts every call into these metrics
+     *
+     * @param <AnyType> Generic class; can compare any type of data
+     */
+    private class CountingComparator<AnyType> implements Comparator<AnyType>
+    {
+        private final Comparator<? super AnyType> cmp;//The real comparator
+
+        /**
+         * Wraps a comparator
+         *
+         * @param cmp The comparator that does the comparing
+         */
+        public CountingComparator(Comparator<? super AnyType> cmp)
+        {
+            this.cmp = cmp;
+        }
+
+        @Override
+        public int compare(AnyType lhs, AnyType rhs)
+        {
+            if (enabled)
+            {
+                comparisons.increment();
+            }
+            return cmp.compare(lhs, rhs);
+        }
+
+        /**
+         * Returns the metrics the calls are counted in
+         *
+         * @return The metrics
+         */
+        QueueMetrics owner()
+        {
+            return QueueMetrics.this;
+        }
+    }
+
+    /**
+     * Wraps a comparator so every call is counted. Build the queue being
+     * instrumented with it
+     *
+     * @param c The comparator the queue would use, null for natural ordering
+     * @return The counting comparator
+     */
+    public <AnyType> Comparator<AnyType> comparator(
+            Comparator<? super AnyType> c)
+    {
+        return new CountingComparator<AnyType>(NaturalOrder.orNatural(c));
+    }
+
+    /**
+     * Checks whether a comparator counts its calls into these metrics
+     *
+     * @param c The comparator of a queue
+     * @return True if c came from comparator() on these metrics
+     */
+    boolean counts(Comparator<?> c)
+    {
+        return c instanceof CountingComparator
+                && ((CountingComparator<?>) c).owner() == this;
+    }
+
+    /**
+     * Records operations that took the given time together
+     *
+     * @param op The operation
+     * @param ops How many were done
+     * @param nanos How long they took
+     */
+    void record(Operation op, int ops, long nanos)
+    {
+        counts[op.ordinal()].add(ops);
+        latencies[op.ordinal()].record(nanos);
+    }
+
+    /**
+     * Returns how many times an operation was recorded
+     *
+     * @param op The operation
+     * @return The count
+     */
+    public long count(Operation op)
+    {
+        return counts[op.ordinal()].sum();
+    }
+
+    /**
+     * Returns the latency histogram of an operation
+     *
+     * @param op The operation
+     * @return The histogram
+     */
+    public LatencyHistogram latency(Operation op)
+    {
+        return latencies[op.ordinal()];
+    }
+
+    /**
+     * Returns how many comparisons the counting comparator made
+     *
+     * @return The count
+     */
+    public long comparisons()
+    {
+        return comparisons.sum();
+    }
+
+    /**
+     * Forgets everything recorded
+     */
+    public void reset()
+    {
+        for (int i = 0; i < OPERATIONS.length; i++)
+        {
+            counts[i].reset();
+            latencies[i].reset();
+        }
+        comparisons.reset();
+    }
+
+    /**
+     * Metrics and queue shape at one moment. Values that the queue does not
+     * have, or that were not measured, are -1
+     */
+    public static class Snapshot
+    {
+        private final long[] counts;        //Count of each operation
+        private final long[][] latencies;   //p50, p99, p99.9, max of each
+        private final long comparisons;     //Comparator calls, or -1
+        private final int size;             //Items in the queue
+        private final int distinct;         //Distinct values in the queue
+        private final int height;           //Tree height
+        private final int maxBucket;        //Largest run of equal items
+        private final int lastScan;         //Nodes the last list add passed
+
+        /**
+         * Copies the metrics and takes the shape of the queue
+         *
+         * @param m The metrics
+         * @param counted True if the queue compares through m's comparator
+         * @param size Items in the queue
+         * @param distinct Distinct values in the queue, or -1
+         * @param height Tree height, or -1
+         * @param maxBucket Largest run of equal items, or -1
+         * @param lastScan Nodes the last list add stepped over, or -1
+         */
+        Snapshot(QueueMetrics m, boolean counted, int size, int distinct,
+                int height, int maxBucket, int lastScan)
+        {
+            counts = new long[OPERATIONS.length];
+            latencies = new long[OPERATIONS.length][];
+            for (int i = 0; i < OPERATIONS.length; i++)
+            {
+                LatencyHistogram h = m.latencies[i];
+                counts[i] = m.counts[i].sum();
+                latencies[i] = new long[]{ h.percentile(0.5),
+                    h.percentile(0.99), h.percentile(0.999), h.max() };
+            }
+            comparisons = counted ? m.comparisons.sum() : -1;
+            this.size = size;
+            this.distinct = distinct;
+            this.height = height;
+            this.maxBucket = maxBucket;
+            this.lastScan = lastScan;
+        }
+
+        /**
+         * Returns how many times an operation ran
+         *
+         * @param op The operation
+         * @return The count
+         */
+        public long count(Operation op)
+        {
+            return counts[op.ordinal()];
+        }
+
+        /**
+         * Returns the median latency of an operation
+         *
+         * @param op The operation
+         * @return The latency in nanoseconds
+         */
+        public long p50(Operation op)
+        {
+            return latencies[op.ordinal()][0];
+        }
+
+        /**
+         * Returns the 99th percentile latency of an operation
+         *
+         * @param op The operation
+         * @return The latency in nanoseconds
+         */
+        public long p99(Operation op)
+        {
+            return latencies[op.ordinal()][1];
+        }
+
+        /**
+         * Returns the 99.9th percentile latency of an operation
+         *
+         * @param op The operation
+         * @return The latency in nanoseconds
+         */
+        public long p999(Operation op)
+        {
+            return latencies[op.ordinal()][2];
+        }
+
+        /**
+         * Returns the largest latency of an operation
+         *
+         * @param op The operation
+         * @return The latency in nanoseconds
+         */
+        public long max(Operation op)
+        {
+            return latencies[op.ordinal()][3];
+        }
+
+        /**
+         * Returns how many comparisons the counting comparator made
+         *
+         * @return The count, or -1 if the queue was not built with the
+         * counting comparator
+         */
+        public long comparisons()
+        {
+            return comparisons;
+        }
+
+        /**
+         * Returns the number of items in the queue
+         *
+         * @return The number of items
+         */
+        public int size()
+        {
+            return size;
+        }
+
+        /**
+         * Returns the number of distinct values in the queue
+         *
+         * @return The number of distinct values, or -1 if the shape was not
+         * taken
+         */
+        public int distinctSize()
+        {
+            return distinct;
+        }
+
+        /**
+         * Returns the height of a tree queue
+         *
+         * @return The height, or -1 if the queue is not a tree or the shape
+         * was not taken
+         */
+        public int height()
+        {
+            return height;
+        }
+
+        /**
+         * Returns the most items that compare equal, for a tree or list queue
+         *
+         * @return The length, or -1 for other queues or if the shape was not
+         * taken
+         */
+        public int maxBucketLength()
+        {
+            return maxBucket;
+        }
+
+        /**
+         * Returns how many nodes the last add to a list queue stepped over
+         *
+         * @return The length, or -1 if the queue is not a list
+         */
+        public int lastScanLength()
+        {
+            return lastScan;
+        }
+
+        /**
+         * Prints the snapshot on a few lines for logs
+         *
+         * @return The snapshot
+         */
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append("size=").append(size);
+            sb.append(" distinct=").append(distinct);
+            sb.append(" height=").append(height);
+            sb.append(" maxBucket=").append(maxBucket);
+            sb.append(" lastScan=").append(lastScan);
+            sb.append(" comparisons=").append(comparisons);
+            for (Operation op : OPERATIONS)
+            {
+                sb.append(String.format("%n  %-16s count=%d p50=%dns "
+                        + "p99=%dns p99.9=%dns max=%dns", op, count(op),
+                        p50(op), p99(op), p999(op), max(op)));
+            }
+            return new String(sb);
+        }
+    }
+}
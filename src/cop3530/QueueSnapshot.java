@@ -0,0 +1,189 @@
+package cop3530;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+/**
+ * Reads and writes queue snapshot files. A snapshot is a header (a magic
+ * number, a version and the item count) followed by the items in ascending
+ * order, each encoded by a SnapshotCodec. Writing goes through one fixed
+ * direct buffer into a temporary file next to the target, which replaces the
+ * target only once it is complete, so a failed write leaves the previous
+ * snapshot as it was. Reading maps the file and decodes straight out of it
+ *
+ * @author David Romero PID: 3624439
+ */
+final class QueueSnapshot
+{
+    static final int MAGIC = 0x44455051;    //"DEPQ"
+    static final int VERSION = 1;           //Bumped if the format changes
+    static final int BUFFER = 1 << 16;      //Bytes held before a write
+
+    private QueueSnapshot()
+    {
+    }
+
+    /**
+     * Writes a snapshot, replacing the file if it exists. The items go to a
+     * temporary file in the same directory, which is forced to disk and then
+     * moved over the target atomically. If anything fails the temporary file
+     * is deleted and the target is left untouched
+     *
+     * @param file The file to write
+     * @param count The number of items itr returns
+     * @param itr The items in ascending order
+     * @param codec Encodes the items
+     * @throws IOException If the file cannot be written
+     * @throws ConcurrentModificationException If itr does not return exactly
+     * count items
+     */
+    static <AnyType> void write(Path file, int count,
+            Iterator<? extends AnyType> itr,
+            SnapshotCodec<? super AnyType> codec) throws IOException
+    {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName() + ".", ".tmp");
+        boolean moved = false;
+        try
+        {
+            writeItems(tmp, count, itr, codec);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        }
+        finally
+        {
+            if (!moved)
+            {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * Writes the header and the items to a file and forces them to disk
+     *
+     * @param file The file to write, which must exist
+     * @param count The number of items itr returns
+     * @param itr The items in ascending order
+     * @param codec Encodes the items
+     * @throws IOException If the file cannot be written
+     */
+    private static <AnyType> void writeItems(Path file, int count,
+            Iterator<? extends AnyType> itr,
+            SnapshotCodec<? super AnyType> codec) throws IOException
+    {
+        try (FileChannel ch = FileChannel.open(file,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+            buf.putInt(MAGIC);
+            buf.putInt(VERSION);
+            buf.putInt(count);
+
+            for (int i = 0; i < count; i++)
+            {
+                if (!itr.hasNext())
+                {
+                    throw new ConcurrentModificationException(
+                            "Queue holds only " + i + " of " + count
+                            + " items");
+                }
+                AnyType x = itr.next();
+                int need = codec.size(x);
+                if (need > buf.remaining())
+                {
+                    drain(ch, buf);
+                    if (need > buf.capacity())
+                    {
+                        buf = ByteBuffer.allocateDirect(need);
+                    }
+                }
+                codec.encode(x, buf);
+            }
+            if (itr.hasNext())
+            {
+                throw new ConcurrentModificationException(
+                        "Queue holds more than " + count + " items");
+            }
+            drain(ch, buf);
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Reads every item of a snapshot
+     *
+     * @param file The file to read
+     * @param codec Decodes the items
+     * @return The items in the order they were written
+     * @throws IOException If the file cannot be read or is not a snapshot
+     */
+    static <AnyType> AnyType[] read(Path file,
+            SnapshotCodec<? extends AnyType> codec) throws IOException
+    {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (ch.size() > Integer.MAX_VALUE)
+            {
+                throw new IOException("Snapshot too large to map: " + file);
+            }
+
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0,
+                    ch.size());
+            try
+            {
+                if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+                {
+                    throw new IOException("Not a queue snapshot: " + file);
+                }
+
+                int count = buf.getInt();
+                if (count < 0)
+                {
+                    throw new IOException("Not a queue snapshot: " + file);
+                }
+
+                @SuppressWarnings("unchecked")
+                AnyType[] items = (AnyType[]) new Object[count];
+                for (int i = 0; i < items.length; i++)
+                {
+                    items[i] = codec.decode(buf);
+                }
+                return items;
+            }
+            catch (BufferUnderflowException e)
+            {
+                throw new IOException("Snapshot is truncated: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Writes out everything in the buffer and clears it
+     *
+     * @param ch The channel to write to
+     * @param buf The buffer holding the bytes
+     * @throws IOException If the channel fails to take the bytes
+     */
+    private static void drain(FileChannel ch, ByteBuffer buf)
+            throws IOException
+    {
+        buf.flip();
+        while (buf.hasRemaining())
+        {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+}
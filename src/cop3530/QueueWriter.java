@@ -0,0 +1,103 @@
+package cop3530;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Prints queues item by item to an Appendable or a channel instead of
+ * building one String, so dumping a very large queue only ever holds one
+ * buffer's worth of text. Uses the same "[ a b c ]" format as toString
+ *
+ * @author David Romero PID: 3624439
+ */
+final class QueueWriter
+{
+    static final int BUFFER = 8192;         //Bytes held before a channel write
+
+    private QueueWriter()
+    {
+    }
+
+    /**
+     * Prints items in the order an iterator returns them
+     *
+     * @param itr The items to print
+     * @param out Where the text goes
+     * @throws IOException If out fails to take the text
+     */
+    static void write(Iterator<?> itr, Appendable out) throws IOException
+    {
+        if (!itr.hasNext())
+        {
+            out.append("[]");
+            return;
+        }
+
+        out.append("[ ");
+        while (itr.hasNext())
+        {
+            out.append(String.valueOf(itr.next()));
+            out.append(' ');
+        }
+        out.append(']');
+    }
+
+    /**
+     * Prints items as UTF-8 to a channel, writing whenever the buffer fills.
+     * The channel is left open
+     *
+     * @param itr The items to print
+     * @param ch Where the bytes go
+     * @throws IOException If the channel fails to take the bytes
+     */
+    static void write(Iterator<?> itr, WritableByteChannel ch)
+            throws IOException
+    {
+        Writer out = Channels.newWriter(ch,
+                StandardCharsets.UTF_8.newEncoder(), BUFFER);
+        write(itr, out);
+        out.flush();
+    }
+
+    /**
+     * Describes a queue in one short line for logs: its size, its ends and
+     * the first few items
+     *
+     * @param q The queue being described
+     * @param itr The items in ascending order
+     * @param n The most items to print
+     * @return The summary
+     */
+    static String summary(DoubleEndedPriorityQueue<?> q, Iterator<?> itr,
+            int n)
+    {
+        StringBuilder sb = new StringBuilder("size=");
+        sb.append(q.size());
+        if (q.isEmpty())
+        {
+            return sb.append(" []").toString();
+        }
+
+        sb.append(" min=");
+        sb.append(q.findMin());
+        sb.append(" max=");
+        sb.append(q.findMax());
+        sb.append(" first=[ ");
+        for (int i = 0; i < n && itr.hasNext(); i++)
+        {
+            sb.append(itr.next());
+            sb.append(" ");
+        }
+        if (itr.hasNext())
+        {
+            sb.append("... ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+}
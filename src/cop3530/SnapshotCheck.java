@@ -0,0 +1,530 @@
+package cop3530;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Round trips every queue that can write snapshots through a file in a
+ * temporary directory, with every codec, and checks that what is read back
+ * holds exactly the items that were written. Each file is read back into
+ * every queue type, not only the one that wrote it. The inputs include
+ * empty queues, duplicate heavy ones and items larger than the write buffer.
+ * Truncated and foreign files must be rejected without touching the queue,
+ * and a write that fails part way must leave the old file as it was.
+ * Prints every failure and exits with status 1 if there were any
+ *
+ * Usage: ant snapshot-check, or java cop3530.SnapshotCheck
+ *
+ * @author David Romero PID: 3624439
+ */
+public class SnapshotCheck
+{
+    private static final int LARGE = 100000;//Items in the large inputs
+
+    private static int checks = 0;          //Checks run
+    private static int failures = 0;        //Checks that failed
+
+    /**
+     * A queue type that can write and read snapshots
+     */
+    private abstract static class Kind
+    {
+        private final String name;          //Printed with failures
+
+        /**
+         * Names a queue type
+         *
+         * @param name The name
+         */
+        Kind(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * Creates an empty queue of this type in natural order
+         *
+         * @return The queue
+         */
+        abstract <T> DoubleEndedPriorityQueue<T> create();
+
+        /**
+         * Writes a queue of this type to a snapshot
+         *
+         * @param q The queue, made by create
+         * @param file The file to write
+         * @param codec Encodes the items
+         * @throws IOException If the file cannot be written
+         */
+        abstract <T> void write(DoubleEndedPriorityQueue<T> q, Path file,
+                SnapshotCodec<? super T> codec) throws IOException;
+
+        /**
+         * Replaces the contents of a queue of this type with a snapshot
+         *
+         * @param q The queue, made by create
+         * @param file The file to read
+         * @param codec Decodes the items
+         * @throws IOException If the file cannot be read
+         */
+        abstract <T> void read(DoubleEndedPriorityQueue<T> q, Path file,
+                SnapshotCodec<? extends T> codec) throws IOException;
+    }
+
+    /**
+     * Returns a tree queue type
+     *
+     * @param name The name
+     * @param balanced True to keep the tree AVL balanced
+     * @param counting True to count equal items rather than keep them all
+     * @return The queue type
+     */
+    private static Kind tree(String name, final boolean balanced,
+            final boolean counting)
+    {
+        return new Kind(name)
+        {
+            @Override
+            <T> DoubleEndedPriorityQueue<T> create()
+            {
+                return new TreeDoubleEndedPriorityQueue<T>(null, balanced,
+                        counting);
+            }
+
+            @Override
+            <T> void write(DoubleEndedPriorityQueue<T> q, Path file,
+                    SnapshotCodec<? super T> codec) throws IOException
+            {
+                ((TreeDoubleEndedPriorityQueue<T>) q).writeSnapshot(file,
+                        codec);
+            }
+
+            @Override
+            <T> void read(DoubleEndedPriorityQueue<T> q, Path file,
+                    SnapshotCodec<? extends T> codec) throws IOException
+            {
+                ((TreeDoubleEndedPriorityQueue<T>) q).readSnapshot(file,
+                        codec);
+            }
+        };
+    }
+
+    /**
+     * Returns every queue type that can write snapshots
+     *
+     * @return The queue types
+     */
+    private static Kind[] kinds()
+    {
+        Kind list = new Kind("list")
+        {
+            @Override
+            <T> DoubleEndedPriorityQueue<T> create()
+            {
+                return new ListDoubleEndedPriorityQueue<T>();
+            }
+
+            @Override
+            <T> void write(DoubleEndedPriorityQueue<T> q, Path file,
+                    SnapshotCodec<? super T> codec) throws IOException
+            {
+                ((ListDoubleEndedPriorityQueue<T>) q).writeSnapshot(file,
+                        codec);
+            }
+
+            @Override
+            <T> void read(DoubleEndedPriorityQueue<T> q, Path file,
+                    SnapshotCodec<? extends T> codec) throws IOException
+            {
+                ((ListDoubleEndedPriorityQueue<T>) q).readSnapshot(file,
+                        codec);
+            }
+        };
+
+        Kind heap = new Kind("min-max heap")
+        {
+            @Override
+            <T> DoubleEndedPriorityQueue<T> create()
+            {
+                return new MinMaxHeapDoubleEndedPriorityQueue<T>();
+            }
+
+            @Override
+            <T> void write(DoubleEndedPriorityQueue<T> q, Path file,
+                    SnapshotCodec<? super T> codec) throws IOException
+            {
+                ((MinMaxHeapDoubleEndedPriorityQueue<T>) q).writeSnapshot(
+                        file, codec);
+            }
+
+            @Override
+            <T> void read(DoubleEndedPriorityQueue<T> q, Path file,
+                    SnapshotCodec<? extends T> codec) throws IOException
+            {
+                ((MinMaxHeapDoubleEndedPriorityQueue<T>) q).readSnapshot(
+                        file, codec);
+            }
+        };
+
+        return new Kind[]{ tree("tree", false, false),
+            tree("balanced tree", true, false),
+            tree("counting tree", true, true), list, heap };
+    }
+
+    /**
+     * Records the result of one check, printing it if it failed
+     *
+     * @param ok Whether the check passed
+     * @param what What was checked
+     */
+    private static void check(boolean ok, String what)
+    {
+        ++checks;
+        if (!ok)
+        {
+            ++failures;
+            System.err.println("FAILED: " + what);
+        }
+    }
+
+    /**
+     * Empties a queue from the small end
+     *
+     * @param q The queue
+     * @return The items in the order they came out
+     */
+    private static <T> List<T> drain(DoubleEndedPriorityQueue<T> q)
+    {
+        List<T> items = new ArrayList<>();
+        while (!q.isEmpty())
+        {
+            items.add(q.deleteMin());
+        }
+        return items;
+    }
+
+    /**
+     * Returns a codec that fails on one item and otherwise defers to another
+     *
+     * @param poison The item to fail on
+     * @param codec The codec for every other item
+     * @return The codec
+     */
+    private static <T> SnapshotCodec<T> failingOn(final T poison,
+            final SnapshotCodec<T> codec)
+    {
+        return new SnapshotCodec<T>()
+        {
+            @Override
+            public int size(T x)
+            {
+                return codec.size(x);
+            }
+
+            @Override
+            public void encode(T x, ByteBuffer buf)
+            {
+                if (x.equals(poison))
+                {
+                    throw new IllegalStateException("Poisoned item " + x);
+                }
+                codec.encode(x, buf);
+            }
+
+            @Override
+            public T decode(ByteBuffer buf)
+            {
+                return codec.decode(buf);
+            }
+        };
+    }
+
+    /**
+     * Writes one input with every queue type and reads each file back into
+     * every queue type, which already holds a stale item that must be gone
+     * afterwards. Then checks the truncated and failed write cases
+     *
+     * @param label The codec and input, printed with failures
+     * @param items The input
+     * @param codec The codec
+     * @param extra An item used as the stale and the poisoned one
+     * @param dir The directory for the files
+     * @throws IOException If a file cannot be written or read
+     */
+    private static <T extends Comparable<? super T>> void roundTrip(
+            String label, T[] items, SnapshotCodec<T> codec, T extra,
+            Path dir) throws IOException
+    {
+        List<T> expected = new ArrayList<>(Arrays.asList(items));
+        Collections.sort(expected);
+        Path file = dir.resolve("round.snapshot");
+
+        for (Kind writer : kinds())
+        {
+            DoubleEndedPriorityQueue<T> q = writer.create();
+            for (T x : items)
+            {
+                q.add(x);
+            }
+            writer.write(q, file, codec);
+            check(q.size() == items.length, label + ": " + writer.name
+                    + " changed while writing");
+
+            for (Kind reader : kinds())
+            {
+                String what = label + ": " + writer.name + " to "
+                        + reader.name;
+                DoubleEndedPriorityQueue<T> loaded = reader.create();
+                loaded.add(extra);
+                reader.read(loaded, file, codec);
+                check(loaded.size() == expected.size(), what + " size "
+                        + loaded.size() + " != " + expected.size());
+                check(drain(loaded).equals(expected), what + " contents");
+            }
+
+            if (items.length > 0)
+            {
+                truncated(label, writer, file, codec, extra, dir);
+            }
+            failedWrite(label, writer, q, file, codec, extra, dir);
+        }
+    }
+
+    /**
+     * Reads cut down copies of a snapshot, each of which must be rejected
+     * with the queue left as it was
+     *
+     * @param label The codec and input, printed with failures
+     * @param kind The queue type to read into
+     * @param file A snapshot of at least one item
+     * @param codec The codec
+     * @param extra The item the queue holds before the read
+     * @param dir The directory for the files
+     * @throws IOException If a file cannot be written
+     */
+    private static <T> void truncated(String label, Kind kind, Path file,
+            SnapshotCodec<T> codec, T extra, Path dir) throws IOException
+    {
+        byte[] whole = Files.readAllBytes(file);
+        Path cut = dir.resolve("cut.snapshot");
+
+        for (int length : new int[]{ 0, 3, 11, 12, whole.length / 2,
+            whole.length - 1 })
+        {
+            Files.write(cut, Arrays.copyOf(whole, length));
+            String what = label + ": " + kind.name + " read of " + length
+                    + " of " + whole.length + " bytes";
+            DoubleEndedPriorityQueue<T> q = kind.create();
+            q.add(extra);
+            try
+            {
+                kind.read(q, cut, codec);
+                check(false, what + " was accepted");
+            }
+            catch (IOException e)
+            {
+                check(q.size() == 1 && q.findMin().equals(extra),
+                        what + " changed the queue");
+            }
+        }
+    }
+
+    /**
+     * Writes a queue over a good snapshot with a codec that fails part way.
+     * The write must throw, the good snapshot must be unchanged, and no
+     * temporary file may be left behind
+     *
+     * @param label The codec and input, printed with failures
+     * @param kind The queue type
+     * @param q A queue of that type, already written to file
+     * @param file The good snapshot
+     * @param codec The codec
+     * @param extra The item the codec fails on
+     * @param dir The directory holding the file
+     * @throws IOException If a file cannot be read
+     */
+    private static <T> void failedWrite(String label, Kind kind,
+            DoubleEndedPriorityQueue<T> q, Path file, SnapshotCodec<T> codec,
+            T extra, Path dir) throws IOException
+    {
+        String what = label + ": " + kind.name + " failed write";
+        byte[] before = Files.readAllBytes(file);
+        q.add(extra);
+        try
+        {
+            kind.write(q, file, failingOn(extra, codec));
+            check(false, what + " did not throw");
+        }
+        catch (IllegalStateException e)
+        {
+            check(Arrays.equals(before, Files.readAllBytes(file)),
+                    what + " changed the old snapshot");
+        }
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir,
+                "*.tmp"))
+        {
+            check(!entries.iterator().hasNext(),
+                    what + " left a temporary file");
+        }
+    }
+
+    /**
+     * Reads files that are not snapshots, each of which must be rejected
+     * with the queue left as it was
+     *
+     * @param dir The directory for the files
+     * @throws IOException If a file cannot be written
+     */
+    private static void foreign(Path dir) throws IOException
+    {
+        Path file = dir.resolve("foreign.snapshot");
+        ByteBuffer wrongVersion = ByteBuffer.allocate(16);
+        wrongVersion.putInt(QueueSnapshot.MAGIC);
+        wrongVersion.putInt(QueueSnapshot.VERSION + 1);
+        wrongVersion.putInt(1);
+        wrongVersion.putInt(7);
+        ByteBuffer negative = ByteBuffer.allocate(12);
+        negative.putInt(QueueSnapshot.MAGIC);
+        negative.putInt(QueueSnapshot.VERSION);
+        negative.putInt(-1);
+
+        byte[][] files = { "not a queue snapshot".getBytes(
+                StandardCharsets.UTF_8), wrongVersion.array(),
+            negative.array() };
+        String[] names = { "text", "wrong version", "negative count" };
+
+        for (Kind kind : kinds())
+        {
+            for (int i = 0; i < files.length; i++)
+            {
+                Files.write(file, files[i]);
+                String what = "foreign " + names[i] + ": " + kind.name;
+                DoubleEndedPriorityQueue<Integer> q = kind.create();
+                q.add(42);
+                try
+                {
+                    kind.read(q, file, SnapshotCodec.INTEGER);
+                    check(false, what + " was accepted");
+                }
+                catch (IOException e)
+                {
+                    check(q.size() == 1 && q.findMin() == 42,
+                            what + " changed the queue");
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs every check in a directory
+     *
+     * @param dir The directory for the files
+     * @throws IOException If a file cannot be written or read
+     */
+    static void run(Path dir) throws IOException
+    {
+        Random r = new Random(1);
+
+        Integer[] ints = new Integer[LARGE];
+        Integer[] intDups = new Integer[LARGE];
+        Long[] longs = new Long[LARGE];
+        Long[] longDups = new Long[LARGE];
+        Double[] doubles = new Double[LARGE];
+        Double[] doubleDups = new Double[LARGE];
+        String[] strings = new String[LARGE / 10];
+        String[] stringDups = new String[LARGE / 10];
+        Double[] special = { Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.MIN_VALUE, -Double.MAX_VALUE };
+        String[] words = { "", "a", "\u00e9", "\u65e5\u672c",
+            "\ud83d\ude00" };
+        for (int i = 0; i < LARGE; i++)
+        {
+            ints[i] = r.nextInt();
+            intDups[i] = r.nextInt(4);
+            longs[i] = r.nextLong();
+            longDups[i] = (long) r.nextInt(4) << 40;
+            doubles[i] = r.nextGaussian();
+            doubleDups[i] = special[r.nextInt(special.length)];
+        }
+        for (int i = 0; i < strings.length; i++)
+        {
+            strings[i] = Long.toString(r.nextLong(), 36);
+            stringDups[i] = words[r.nextInt(words.length)];
+        }
+        char[] big = new char[QueueSnapshot.BUFFER + 100];
+        Arrays.fill(big, 'x');
+
+        roundTrip("int empty", new Integer[0], SnapshotCodec.INTEGER, 42, dir);
+        roundTrip("int single", new Integer[]{ 7 }, SnapshotCodec.INTEGER, 42,
+                dir);
+        roundTrip("int extremes", new Integer[]{ Integer.MAX_VALUE,
+            Integer.MIN_VALUE, 0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE },
+                SnapshotCodec.INTEGER, 42, dir);
+        roundTrip("int random", ints, SnapshotCodec.INTEGER, 42, dir);
+        roundTrip("int duplicates", intDups, SnapshotCodec.INTEGER, 42, dir);
+
+        roundTrip("long empty", new Long[0], SnapshotCodec.LONG, 42L, dir);
+        roundTrip("long extremes", new Long[]{ Long.MAX_VALUE,
+            Long.MIN_VALUE, 0L, Long.MIN_VALUE }, SnapshotCodec.LONG, 42L,
+                dir);
+        roundTrip("long random", longs, SnapshotCodec.LONG, 42L, dir);
+        roundTrip("long duplicates", longDups, SnapshotCodec.LONG, 42L, dir);
+
+        roundTrip("double empty", new Double[0], SnapshotCodec.DOUBLE, 4.2,
+                dir);
+        roundTrip("double special", special, SnapshotCodec.DOUBLE, 4.2, dir);
+        roundTrip("double random", doubles, SnapshotCodec.DOUBLE, 4.2, dir);
+        roundTrip("double duplicates", doubleDups, SnapshotCodec.DOUBLE, 4.2,
+                dir);
+
+        roundTrip("string empty", new String[0], SnapshotCodec.STRING,
+                "stale", dir);
+        roundTrip("string larger than the buffer", new String[]{ "b",
+            new String(big), "a", new String(big) }, SnapshotCodec.STRING,
+                "stale", dir);
+        roundTrip("string random", strings, SnapshotCodec.STRING, "stale",
+                dir);
+        roundTrip("string duplicates", stringDups, SnapshotCodec.STRING,
+                "stale", dir);
+
+        foreign(dir);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        Path dir = Files.createTempDirectory("depq-snapshot");
+        try
+        {
+            run(dir);
+        }
+        finally
+        {
+            try (DirectoryStream<Path> entries
+                    = Files.newDirectoryStream(dir))
+            {
+                for (Path p : entries)
+                {
+                    Files.delete(p);
+                }
+            }
+            Files.delete(dir);
+        }
+
+        System.out.println(checks + " snapshot checks, " + failures
+                + " failed");
+        if (failures > 0)
+        {
+            System.exit(1);
+        }
+    }
+}
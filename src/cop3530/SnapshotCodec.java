@@ -0,0 +1,138 @@
+package cop3530;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns queue items into bytes for a snapshot file and back. Codecs for the
+ * common boxed types and strings are provided
+ *
+ * @author David Romero PID: 3624439
+ */
+public interface SnapshotCodec<AnyType>
+{
+    /**
+     * Returns how many bytes encode will write for an item
+     *
+     * @param x The item
+     * @return The number of bytes
+     */
+    int size( AnyType x );
+
+    /**
+     * Writes an item at the buffer's position, which has at least size(x)
+     * bytes remaining
+     *
+     * @param x The item
+     * @param buf The buffer to write to
+     */
+    void encode( AnyType x, ByteBuffer buf );
+
+    /**
+     * Reads the item at the buffer's position
+     *
+     * @param buf The buffer to read from
+     * @return The item
+     */
+    AnyType decode( ByteBuffer buf );
+
+    /**
+     * Integers as 4 bytes
+     */
+    SnapshotCodec<Integer> INTEGER = new SnapshotCodec<Integer>( )
+    {
+        @Override
+        public int size( Integer x )
+        {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode( Integer x, ByteBuffer buf )
+        {
+            buf.putInt( x );
+        }
+
+        @Override
+        public Integer decode( ByteBuffer buf )
+        {
+            return buf.getInt( );
+        }
+    };
+
+    /**
+     * Longs as 8 bytes
+     */
+    SnapshotCodec<Long> LONG = new SnapshotCodec<Long>( )
+    {
+        @Override
+        public int size( Long x )
+        {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode( Long x, ByteBuffer buf )
+        {
+            buf.putLong( x );
+        }
+
+        @Override
+        public Long decode( ByteBuffer buf )
+        {
+            return buf.getLong( );
+        }
+    };
+
+    /**
+     * Doubles as 8 bytes
+     */
+    SnapshotCodec<Double> DOUBLE = new SnapshotCodec<Double>( )
+    {
+        @Override
+        public int size( Double x )
+        {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void encode( Double x, ByteBuffer buf )
+        {
+            buf.putDouble( x );
+        }
+
+        @Override
+        public Double decode( ByteBuffer buf )
+        {
+            return buf.getDouble( );
+        }
+    };
+
+    /**
+     * Strings as a 4 byte length followed by that many bytes of UTF-8
+     */
+    SnapshotCodec<String> STRING = new SnapshotCodec<String>( )
+    {
+        @Override
+        public int size( String x )
+        {
+            return Integer.BYTES + x.getBytes( StandardCharsets.UTF_8 ).length;
+        }
+
+        @Override
+        public void encode( String x, ByteBuffer buf )
+        {
+            byte[] b = x.getBytes( StandardCharsets.UTF_8 );
+            buf.putInt( b.length );
+            buf.put( b );
+        }
+
+        @Override
+        public String decode( ByteBuffer buf )
+        {
+            byte[] b = new byte[ buf.getInt( ) ];
+            buf.get( b );
+            return new String( b, StandardCharsets.UTF_8 );
+        }
+    };
+}
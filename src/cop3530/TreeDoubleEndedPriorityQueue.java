@@ -1,19 +1,47 @@
 package cop3530;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class implements a double ended priority queue using a binary search
- * tree
+ * tree. The tree can optionally be kept balanced (AVL) so that sorted input
+ * does not degrade it into a linked list. Items added with insert can be
+ * removed or changed later through the list node that holds them. Every node
+ * knows how many items are in its subtree, so order statistics (select, rank,
+ * median) take one walk down the tree. A balanced tree fixes those counts on
+ * every delete, since its root is O(log n) away. On an unbalanced tree that
+ * walk could cost O(n) per delete from either end, so such deletes mark the
+ * counts stale instead and the next order statistic rebuilds them in O(n).
+ * Iterating walks the items in order, and the spliterator splits at
+ * subtrees so streams can run in parallel
  *
  * @author David Romero PID: 3624439
  */
 public class TreeDoubleEndedPriorityQueue<AnyType> implements
-        DoubleEndedPriorityQueue<AnyType>
+        AddressableDoubleEndedPriorityQueue<AnyType>, Iterable<AnyType>
 {
     private Node<AnyType> root = null;      //First node
-    private Comparator<? super AnyType> cmp;//Comparator for any type of data
-    private int size;                       //Height of the tree
+    private final Comparator<? super AnyType> cmp;//Comparator for the data
+    private int size;                       //Items, duplicates included
+    private int distinct;                   //Nodes, one per distinct value
+    private final boolean balanced;         //Whether AVL balancing is used
+    private final boolean countDuplicates;  //Whether equal items share a count
+    private Node<AnyType> minNode = null;   //Left most node (smallest)
+    private Node<AnyType> maxNode = null;   //Right most node (largest)
+    private int modCount = 0;               //Changes, for fail-fast iterators
+    private boolean countsStale = false;    //Subtree counts need rebuilding
 
     /**
      * Constructor for the Tree Double-ended priority queue
@@ -32,7 +60,52 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
      */
     public TreeDoubleEndedPriorityQueue(Comparator<? super AnyType> c)
     {
-        cmp = c;
+        this(c, false);
+    }
+
+    /**
+     * Constructor for the Tree Double-ended priority queue. Selects whether
+     * the tree keeps itself balanced
+     * 
+     * @param balanced True to keep the tree AVL balanced
+     */
+    public TreeDoubleEndedPriorityQueue(boolean balanced)
+    {
+        this(null, balanced);
+    }
+
+    /**
+     * Constructor for the Tree Double-ended priority queue. Accepts a
+     * comparator and selects whether the tree keeps itself balanced. A
+     * balanced tree keeps add, deleteMin and deleteMax O(log n) even when the
+     * data comes in sorted
+     * 
+     * @param c The comparator to be passed
+     * @param balanced True to keep the tree AVL balanced
+     */
+    public TreeDoubleEndedPriorityQueue(Comparator<? super AnyType> c,
+            boolean balanced)
+    {
+        this(c, balanced, false);
+    }
+
+    /**
+     * Constructor for the Tree Double-ended priority queue. Accepts a
+     * comparator, selects whether the tree keeps itself balanced and whether
+     * duplicates are counted. When counting, an item that compares equal to
+     * and equals an item already in the tree bumps that item's count instead
+     * of getting a list node of its own
+     * 
+     * @param c The comparator to be passed
+     * @param balanced True to keep the tree AVL balanced
+     * @param countDuplicates True to store equal items once with a count
+     */
+    public TreeDoubleEndedPriorityQueue(Comparator<? super AnyType> c,
+            boolean balanced, boolean countDuplicates)
+    {
+        cmp = NaturalOrder.orNatural(c);
+        this.balanced = balanced;
+        this.countDuplicates = countDuplicates;
         makeEmpty();
     }
 
@@ -46,14 +119,21 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
 
         private Node<AnyType> left;         //The left node
         private Node<AnyType> right;        //The right node
+        private Node<AnyType> parent;       //The parent node
         private ListNode<AnyType> items;    //The data (using lists for this)
+        private int height;                 //Height of node (balanced only)
+        private int copies;                 //Items in this node's list
+        private int total;                  //Items in this subtree
+        private int nodes;                  //Nodes in this subtree
 
-        //The list that hold the data within the node. Singlely linked
-        private static class ListNode<AnyType>
+        //The list that hold the data within the node. Singlely linked. Also
+        //serves as the handle for the data it holds
+        private static class ListNode<AnyType> implements Handle<AnyType>
         {
 
             private AnyType data;           //Data in the node
             private ListNode<AnyType> next; //The node next to current node
+            private int count = 1;          //Copies of the data (counting)
 
             /**
              * Creates a list containing data
@@ -67,6 +147,17 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
                 next = n;
             }
 
+            /**
+             * Returns the data this handle refers to
+             *
+             * @return The data
+             */
+            @Override
+            public AnyType getValue()
+            {
+                return data;
+            }
+
             /**
              * Prints the linked list inside the tree node
              * 
@@ -78,8 +169,11 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
 
                 for (ListNode<AnyType> l = this; l != null; l = l.next)
                 {
-                    sb.append(l.data);
-                    sb.append(" ");
+                    for (int i = 0; i < l.count; i++)
+                    {
+                        sb.append(l.data);
+                        sb.append(" ");
+                    }
                 }
 
                 return new String(sb);
@@ -92,15 +186,28 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
          * @param data Data to be put in the tree
          */
         public Node(AnyType data)
+        {
+            this(new ListNode<AnyType>(data, null));
+        }
+
+        /**
+         * Node constructor for a list node that already exists
+         *
+         * @param l The list node holding the data
+         */
+        public Node(ListNode<AnyType> l)
         {
             left = right = null;
-            items = new ListNode<AnyType>(data, null);
+            items = l;
+            height = 0;
+            copies = total = l.count;
+            nodes = 1;
         }
     }
 
     /**
-     * Compares two pieces of data. If the data is not comparable, cast it to
-     * comparable and return the results.
+     * Compares two pieces of data with the comparator picked at construction
+     * (natural ordering if none was given).
      *
      * @param lhs The first piece data being used to compare
      * @param rhs The second piece of data being used to compare
@@ -108,14 +215,20 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
      */
     public int myCompare(AnyType lhs, AnyType rhs)
     {
-        if (cmp == null)
-        {
-            return ((Comparable) lhs).compareTo(rhs);
-        }
-
         return cmp.compare(lhs, rhs);
     }
 
+    /**
+     * Returns the comparator that orders the queue
+     *
+     * @return The comparator, natural ordering if none was given
+     */
+    @Override
+    public Comparator<? super AnyType> comparator()
+    {
+        return cmp;
+    }
+
     /**
      * Clears the tree
      */
@@ -123,9 +236,36 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
     public void makeEmpty()
     {
         root = null;
+        minNode = maxNode = null;
+        countsStale = false;
+        ++modCount;
+        distinct = 0;
         size = 0;
     }
 
+    /**
+     * Returns the number of items in the tree, every duplicate included
+     * 
+     * @return The number of items
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values in the tree, which is the number
+     * of nodes since equal items share one
+     * 
+     * @return The number of distinct values
+     */
+    @Override
+    public int distinctSize()
+    {
+        return distinct;
+    }
+
     /**
      * Adds new nodes to the tree in sorted order
      *
@@ -134,303 +274,2064 @@ public class TreeDoubleEndedPriorityQueue<AnyType> implements
     @Override
     public void add(AnyType x)
     {
-        root = add(x, root);
+        link(x, null);
     }
 
     /**
-     * Private add recursive routine for the tree.Called by public add
-     * 
-     * @param x The data to be added
-     * @param n The starting point of the search (root)
-     * @return The added node
+     * Adds data to the tree and returns a handle to it, which can be passed
+     * to remove or changeKey later. Not available when duplicates are
+     * counted, since equal items then share one entry
+     *
+     * @param x Data to be added
+     * @return The handle for the data
      */
-    private Node add(AnyType x, Node<AnyType> n)
+    @Override
+    public Handle<AnyType> insert(AnyType x)
     {
-        //If the position where the node should be is null, add it there
-        if (n == null)
-        {
-            ++size;
-            return new Node(x);
-        }
-
-        //If the incoming data is smaller than the current node, go left
-        if (myCompare(n.items.data, x) > 0)
-        {
-            n.left = add(x, n.left);
-        }
-        //Else if the incoming data is larger, go to the right
-        else if (myCompare(n.items.data, x) < 0)
-        {
-            n.right = add(x, n.right);
-        }
-        //If the data is the same as the current nodes, add it to the list in
-        //the node
-        else if (myCompare(n.items.data, x) == 0)
+        if (countDuplicates)
         {
-            n.items = new Node.ListNode<>(x, n.items);
+            throw new UnsupportedOperationException(
+                    "Handles are not kept when duplicates are counted");
         }
 
-        return n;
+        return link(x, null);
     }
 
     /**
-     * Deletes the smallest value. Also handle case where root is smallest
+     * Puts data into the tree in sorted order
      *
-     * @return The value deleted
+     * @param x Data to be added
+     * @param e The list node to hold the data, or null to make one
+     * @return The list node holding the data
      */
-    @Override
-    public AnyType deleteMin()
+    private Node.ListNode<AnyType> link(AnyType x, Node.ListNode<AnyType> e)
     {
-        //If the list is empty, you can't remove anything!
-        if (isEmpty())
+        //If the tree is empty the new node is the root, min and max
+        if (root == null)
         {
-            throw new UnderflowException();
+            root = minNode = maxNode = newNode(x, e);
+            ++size;
+            ++modCount;
+            ++distinct;
+            return root.items;
         }
 
-        //If you can't go anymore left, this must be the smallest
-        if (root.left == null)
+        //Walk down from the root, keeping track of whether the path so far
+        //only went left or only went right so the cached min and max nodes
+        //can be updated without extra comparisons
+        Node<AnyType> n = root;
+        Node<AnyType> added;
+        boolean leftmost = true;
+        boolean rightmost = true;
+
+        while (true)
         {
-            //Holds the data that's to be removed
-            AnyType rem = root.items.data;
+            //One comparison per node decides the direction
+            int c = myCompare(x, n.items.data);
 
-            //If the root has duplicates, only remove one of the duplicates
-            if (root.items.next != null)
+            //If the incoming data is smaller than the current node, go left
+            if (c < 0)
             {
-                root.items = root.items.next;
-                return rem;
+                rightmost = false;
+                if (n.left == null)
+                {
+                    added = n.left = newNode(x, e);
+                    break;
+                }
+                n = n.left;
+            }
+            //Else if the incoming data is larger, go to the right
+            else if (c > 0)
+            {
+                leftmost = false;
+                if (n.right == null)
+                {
+                    added = n.right = newNode(x, e);
+                    break;
+                }
+                n = n.right;
             }
-            //Else the node has no duplicates, therefore simply remove the node
+            //If the data is the same as the current nodes, add it to the list
+            //in the node
             else
             {
-                root = root.right;
-                --size;
-                return rem;
+                Node.ListNode<AnyType> l = addToBucket(n, x, e);
+                ++size;
+                ++modCount;
+                for (Node<AnyType> m = n; m != null; m = m.parent)
+                {
+                    ++m.total;
+                }
+                return l;
             }
         }
-        else //You can still travel further left
+
+        //Counts are only touched once x is in place, so a comparator that
+        //throws part way down leaves the tree as it was
+        added.parent = n;
+        ++size;
+        ++modCount;
+        ++distinct;
+        for (Node<AnyType> m = n; m != null; m = m.parent)
+        {
+            ++m.total;
+            ++m.nodes;
+        }
+        if (leftmost)
+        {
+            minNode = added;
+        }
+        if (rightmost)
+        {
+            maxNode = added;
+        }
+
+        if (balanced)
         {
-            return deleteMin(root);
+            rebalanceUp(n);
         }
+
+        return added.items;
     }
 
     /**
-     * Private delete min recursive routine. Handles case where there are left 
-     * nodes
+     * Creates a tree node for data
      * 
-     * @param n Starting node for search (root)
-     * @return The value that is removed
+     * @param x The data
+     * @param e The list node to hold the data, or null to make one
+     * @return The new tree node
      */
-    private AnyType deleteMin(Node<AnyType> n)
+    private static <AnyType> Node<AnyType> newNode(AnyType x,
+            Node.ListNode<AnyType> e)
     {
-        //"Planning ahead". Checking if there is an upcoming null node in order
-        //to adjust links accordingly
-        if (n.left.left == null)
-        {
-            //Holds the data that's to be removed
-            AnyType rem = n.left.items.data;
+        return e == null ? new Node<>(x) : new Node<>(e);
+    }
 
-            //Checking if the tree node has duplicates, if it does remove one
-            //of the duplicates
-            if (n.left.items.next != null)
-            {
-                n.left.items = n.left.items.next;
-                return rem;
-            }
-            else //There are no duplicates. Remove the node
+    /**
+     * Puts an item into the bucket of a node it compares equal to. In
+     * counting mode an item that equals one already in the bucket only bumps
+     * its count; otherwise it goes to the head of the bucket
+     * 
+     * @param n The node
+     * @param x The item
+     * @param e The list node to hold the item, or null to make one
+     * @return The list node holding the item
+     */
+    private Node.ListNode<AnyType> addToBucket(Node<AnyType> n, AnyType x,
+            Node.ListNode<AnyType> e)
+    {
+        if (countDuplicates)
+        {
+            for (Node.ListNode<AnyType> l = n.items; l != null; l = l.next)
             {
-                n.left = n.left.right;
-                --size;
-                return rem;
+                if (x.equals(l.data))
+                {
+                    ++l.count;
+                    ++n.copies;
+                    return l;
+                }
             }
         }
-        else //Else keep going more left
+
+        if (e == null)
+        {
+            e = new Node.ListNode<>(x, n.items);
+        }
+        else
         {
-            return deleteMin(n.left);
+            e.next = n.items;
         }
+        ++n.copies;
+        return n.items = e;
     }
 
     /**
-     * Deletes the largest value. Also handles the root case
+     * Checks whether the tree holds an item that compares equal to x
      * 
-     * @return The value removed
+     * @param x The item to look for
+     * @return True if an equal item is in the tree
      */
     @Override
-    public AnyType deleteMax()
+    public boolean contains(AnyType x)
     {
-        //If the list is empty, you can't remove anything!
-        if (isEmpty())
+        return find(x) != null;
+    }
+
+    /**
+     * Removes the item a handle refers to
+     * 
+     * @param h A handle returned by insert
+     * @return True if the item was removed, false if it was no longer in the
+     * tree
+     */
+    @Override
+    public boolean remove(Handle<AnyType> h)
+    {
+        if (!(h instanceof Node.ListNode))
         {
-            throw new UnderflowException();
+            throw new IllegalArgumentException("Not a handle of this queue");
+        }
+
+        Node.ListNode<AnyType> e = (Node.ListNode<AnyType>) h;
+        Node<AnyType> n = find(e.data);
+        if (n == null)
+        {
+            return false;
+        }
+
+        //Find the handle in the bucket by identity
+        Node.ListNode<AnyType> prev = null;
+        Node.ListNode<AnyType> l = n.items;
+        while (l != null && l != e)
+        {
+            prev = l;
+            l = l.next;
+        }
+        if (l == null)
+        {
+            return false;
+        }
+
+        --size;
+        ++modCount;
+        --n.copies;
+        dropCounts(n, 1);
+        if (prev != null)
+        {
+            prev.next = l.next;
+        }
+        else if (l.next != null)
+        {
+            n.items = l.next;
+        }
+        else
+        {
+            removeNode(n);
+        }
+        l.next = null;
+
+        return true;
+    }
+
+    /**
+     * Changes the value of the item a handle refers to and moves it to its
+     * new place. The handle stays valid
+     * 
+     * @param h A handle returned by insert
+     * @param newValue The new value
+     * @throws IllegalArgumentException If the item is no longer in the tree
+     */
+    @Override
+    public void changeKey(Handle<AnyType> h, AnyType newValue)
+    {
+        if (!remove(h))
+        {
+            throw new IllegalArgumentException("Handle is not in the queue");
         }
-        
-        //Checking if the root has a right path, if not root is max
-        if (root.right == null)
+
+        Node.ListNode<AnyType> e = (Node.ListNode<AnyType>) h;
+        e.data = newValue;
+        link(newValue, e);
+    }
+
+    /**
+     * Finds the node holding items equal to x
+     * 
+     * @param x The item to look for
+     * @return The node, or null if there is none
+     */
+    private Node<AnyType> find(AnyType x)
+    {
+        Node<AnyType> n = root;
+        while (n != null)
         {
-            //Holds the data that's to be removed
-            AnyType rem = root.items.data;
+            int c = myCompare(x, n.items.data);
+            if (c == 0)
+            {
+                return n;
+            }
+            n = c < 0 ? n.left : n.right;
+        }
+        return null;
+    }
 
-            //If the root has duplicates, remove one of them
-            if (root.items.next != null)
+    /**
+     * Removes a node from anywhere in the tree. A node with two children
+     * takes over the bucket of its successor, which is then unlinked instead
+     * 
+     * @param n The node to remove
+     */
+    private void removeNode(Node<AnyType> n)
+    {
+        if (n.left != null && n.right != null)
+        {
+            //The successor's items move up into n, so only the nodes in
+            //between lose them from their subtree counts
+            Node<AnyType> s = leftmost(n.right);
+            for (Node<AnyType> m = s.parent; m != n; m = m.parent)
             {
-                root.items = root.items.next;
-                return rem;
+                m.total -= s.copies;
             }
-            else //The root node has no duplicates, remove
+            n.items = s.items;
+            n.copies = s.copies;
+            if (s == maxNode)
             {
-                root = root.left;
-                --size;
-                return rem;
+                maxNode = n;
             }
+            unlink(s);
+            return;
+        }
+
+        if (n == minNode)
+        {
+            minNode = n.right != null ? leftmost(n.right) : n.parent;
         }
-        else //Root does have a right path
+        if (n == maxNode)
         {
-            return deleteMax(root);
+            maxNode = n.left != null ? rightmost(n.left) : n.parent;
         }
+        unlink(n);
     }
 
     /**
-     * Private recursive routine. Handles case where there is a right path
+     * Adds every item in a collection. See addAll(AnyType[])
      * 
-     * @param n Starting point (root)
-     * @return The value deleted
+     * @param items The items to be added
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addAll(Collection<? extends AnyType> items)
+    {
+        addAll((AnyType[]) items.toArray());
+    }
+
+    /**
+     * Adds every item in an array. Small batches are added one at a time.
+     * Larger batches are sorted once (skipped if they are already sorted),
+     * merged with the nodes already in the tree and linked into a perfectly
+     * balanced tree in linear time
+     * 
+     * @param items The items to be added
      */
-    private AnyType deleteMax(Node<AnyType> n)
+    @Override
+    public void addAll(AnyType[] items)
     {
-        //"Planning ahead". Checking the path ahead to see if there is an
-        //upcoming null node inorder to adjust links accordingly
-        if (n.right.right == null)
+        if (items.length == 0 || items.length < distinct)
+        {
+            for (AnyType x : items)
+            {
+                add(x);
+            }
+            return;
+        }
+
+        AnyType[] sorted = items.clone();
+        if (!isSorted(sorted))
+        {
+            Arrays.sort(sorted, cmp);
+        }
+        ++modCount;
+
+        //Collect the existing nodes in order
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<AnyType>[] nodes = new Node[distinct + sorted.length];
+        int old = 0;
+        for (Node<AnyType> n = minNode; n != null; n = successor(n))
+        {
+            nodes[old++] = n;
+        }
+
+        //Merge the existing nodes with the sorted items from the back so the
+        //merged nodes can be written into the same array. Equal items join
+        //the bucket of the node they match
+        int i = old - 1;
+        int k = nodes.length;
+        for (int j = sorted.length - 1; j >= 0;)
         {
-            //Holds the data that's to be removed
-            AnyType rem = n.right.items.data;
+            int c = i < 0 ? -1 : myCompare(nodes[i].items.data, sorted[j]);
+            if (c > 0)
+            {
+                nodes[--k] = nodes[i--];
+                continue;
+            }
+
+            //Find the run of items equal to sorted[j]
+            int start = j;
+            while (start > 0 && myCompare(sorted[start - 1], sorted[j]) == 0)
+            {
+                --start;
+            }
 
-            //Checking if the tree node has any duplicates
-            if (n.right.items.next != null)
+            Node<AnyType> n;
+            int e = start;
+            if (c == 0)
             {
-                n.right.items = n.right.items.next;
-                return rem;
+                n = nodes[i--];
             }
-            else //If it doesn't just remove the node
+            else
             {
-                n.right = n.right.left;
-                --size;
+                n = new Node<>(sorted[e++]);
+                ++distinct;
+            }
 
-                return rem;
+            //Put the run in front of the bucket in the order it was given, so
+            //the newest item is at the head like add does
+            for (; e <= j; e++)
+            {
+                addToBucket(n, sorted[e], null);
             }
+            j = start - 1;
+
+            nodes[--k] = n;
         }
-        else //Can keep going more left
+        while (i >= 0)
         {
-            return deleteMax(n.right);
+            nodes[--k] = nodes[i--];
         }
+
+        size += sorted.length;
+        root = build(nodes, k, nodes.length - 1, null);
+        minNode = nodes[k];
+        maxNode = nodes[nodes.length - 1];
     }
 
     /**
-     * Finds the smallest value in the tree
+     * Checks whether an array is already in ascending order
      * 
-     * @return The smallest value
+     * @param items The array to check
+     * @return True if the array is sorted
      */
-    @Override
-    public AnyType findMin()
+    private boolean isSorted(AnyType[] items)
     {
-        if (isEmpty())
+        for (int i = 1; i < items.length; i++)
         {
-            throw new UnderflowException();
+            if (myCompare(items[i - 1], items[i]) > 0)
+            {
+                return false;
+            }
         }
-        return findMin(root);
+        return true;
     }
 
     /**
-     * Private recursive routine for find min. Flows the left most path
+     * Links a sorted run of nodes into a perfectly balanced subtree
      * 
-     * @param n The starting node
-     * @return The smallest value
+     * @param nodes The nodes in sorted order
+     * @param lo The first node of the run
+     * @param hi The last node of the run
+     * @param parent The parent of the subtree
+     * @return The root of the subtree
      */
-    private AnyType findMin(Node<AnyType> n)
+    private static <AnyType> Node<AnyType> build(Node<AnyType>[] nodes,
+            int lo, int hi, Node<AnyType> parent)
     {
-        if (n.left == null)
+        if (lo > hi)
         {
-            return n.items.data;
+            return null;
         }
 
-        return findMin(n.left);
+        int mid = (lo + hi) >>> 1;
+        Node<AnyType> n = nodes[mid];
+        n.parent = parent;
+        n.left = build(nodes, lo, mid - 1, n);
+        n.right = build(nodes, mid + 1, hi, n);
+        update(n);
+
+        return n;
     }
 
     /**
-     * Finds the largest value in the tree
+     * Returns the height of a node, -1 if the node is null
      * 
-     * @return The largest value 
+     * @param n The node
+     * @return The height of the node
      */
-    @Override
-    public AnyType findMax()
+    private static int height(Node<?> n)
     {
-        if (root == null)
-        {
-            throw new UnderflowException();
-        }
-
-        return findMax(root);
+        return n == null ? -1 : n.height;
     }
 
     /**
-     * Private recursive routine for find max. Follows right most path
+     * Returns the number of items in a subtree, 0 if the node is null
      * 
-     * @param n Starting node 
-     * @return Largest value
+     * @param n The root of the subtree
+     * @return The number of items
      */
-    private AnyType findMax(Node<AnyType> n)
+    private static int total(Node<?> n)
     {
-        if (n.right == null)
-        {
-            return n.items.data;
-        }
+        return n == null ? 0 : n.total;
+    }
 
-        return findMax(n.right);
+    /**
+     * Returns the number of nodes in a subtree, 0 if the node is null
+     * 
+     * @param n The root of the subtree
+     * @return The number of nodes
+     */
+    private static int nodes(Node<?> n)
+    {
+        return n == null ? 0 : n.nodes;
     }
 
     /**
-     * Checks if the tree is empty
+     * Recomputes the height and the subtree counts of a node from its
+     * children
      * 
-     * @return Boolean showing whether tree is empty or not
+     * @param n The node to update
      */
-    @Override
-    public boolean isEmpty()
+    private static void update(Node<?> n)
     {
-        return size == 0;
+        n.height = Math.max(height(n.left), height(n.right)) + 1;
+        n.total = n.copies + total(n.left) + total(n.right);
+        n.nodes = 1 + nodes(n.left) + nodes(n.right);
     }
 
     /**
-     * Prints the tree. Calls a private recursive routine to print the leaves
-     * of the tree
+     * Takes items off the subtree counts of a node and all of its ancestors
      * 
-     * @return The printed tree
+     * @param n The lowest node that lost the items
+     * @param k The number of items lost
      */
-    public String toString()
+    private static void dropCounts(Node<?> n, int k)
     {
-        //If the tree is empty, just return an empty brace
-        if (isEmpty())
+        for (; n != null; n = n.parent)
         {
-            return "[]";
+            n.total -= k;
         }
-        StringBuilder sb = new StringBuilder("[ ");
-        toString(root, sb);
-        sb.append("]");
-
-        return new String(sb);
     }
 
     /**
-     * Private recursive routine for toString. Follows the left and right paths
-     * and prints the contents
+     * Takes items off the subtree counts after a delete from either end. A
+     * balanced tree walks to the root in O(log n) and keeps the counts exact;
+     * an unbalanced one marks them stale for recount instead
      * 
-     * @param t The starting node
-     * @param sb Stringbuilder going to be used to append
+     * @param n The lowest node that lost the items
+     * @param k The number of items lost
+     */
+    private void dropEndCounts(Node<?> n, int k)
+    {
+        if (balanced && !countsStale)
+        {
+            dropCounts(n, k);
+        }
+        else
+        {
+            countsStale = true;
+        }
+    }
+
+    /**
+     * Rebuilds every subtree count if deletes from the ends left them stale.
+     * The walk is a post-order traversal along the parent links rather than
+     * recursion, since an unbalanced tree can be as deep as it is large
      */
-    private void toString(Node<AnyType> t, StringBuilder sb)
+    private void recount()
     {
-        if (t != null)
+        if (!countsStale)
+        {
+            return;
+        }
+
+        Node<AnyType> prev = null;
+        Node<AnyType> n = root;
+        while (n != null)
         {
-            toString(t.left, sb);
-            sb.append(t.items);
-            toString(t.right, sb);
+            //Coming down: visit the left subtree, then the right one
+            if (prev == n.parent && n.left != null)
+            {
+                prev = n;
+                n = n.left;
+            }
+            else if ((prev == n.parent || prev == n.left) && n.right != null)
+            {
+                prev = n;
+                n = n.right;
+            }
+            //Both subtrees are done
+            else
+            {
+                update(n);
+                prev = n;
+                n = n.parent;
+            }
+        }
+        countsStale = false;
+    }
+
+    /**
+     * Restores the AVL property at a node whose children differ in height by
+     * at most two. The caller is responsible for linking the returned node to
+     * the old parent
+     * 
+     * @param n The node to balance
+     * @return The new root of the subtree
+     */
+    private Node<AnyType> balance(Node<AnyType> n)
+    {
+        //Left side is too tall
+        if (height(n.left) - height(n.right) > 1)
+        {
+            if (height(n.left.left) < height(n.left.right))
+            {
+                n.left = rotateLeft(n.left);
+                n.left.parent = n;
+            }
+            return rotateRight(n);
+        }
+        //Right side is too tall
+        if (height(n.right) - height(n.left) > 1)
+        {
+            if (height(n.right.right) < height(n.right.left))
+            {
+                n.right = rotateRight(n.right);
+                n.right.parent = n;
+            }
+            return rotateLeft(n);
+        }
+
+        update(n);
+        return n;
+    }
+
+    /**
+     * Rotates a node with its left child
+     * 
+     * @param n The node to rotate
+     * @return The new root of the subtree (the old left child)
+     */
+    private Node<AnyType> rotateRight(Node<AnyType> n)
+    {
+        Node<AnyType> l = n.left;
+        n.left = l.right;
+        if (n.left != null)
+        {
+            n.left.parent = n;
+        }
+        l.right = n;
+        n.parent = l;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    /**
+     * Rotates a node with its right child
+     * 
+     * @param n The node to rotate
+     * @return The new root of the subtree (the old right child)
+     */
+    private Node<AnyType> rotateLeft(Node<AnyType> n)
+    {
+        Node<AnyType> r = n.right;
+        n.right = r.left;
+        if (n.right != null)
+        {
+            n.right.parent = n;
+        }
+        r.left = n;
+        n.parent = r;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    /**
+     * Replaces a node with another in its parent (or at the root)
+     * 
+     * @param n The node being replaced
+     * @param p The parent of the node being replaced
+     * @param c The replacement, may be null
+     */
+    private void replaceChild(Node<AnyType> n, Node<AnyType> p,
+            Node<AnyType> c)
+    {
+        if (p == null)
+        {
+            root = c;
+        }
+        else if (p.left == n)
+        {
+            p.left = c;
+        }
+        else
+        {
+            p.right = c;
+        }
+
+        if (c != null)
+        {
+            c.parent = p;
+        }
+    }
+
+    /**
+     * Walks from a node up to the root restoring the AVL property. Stops as
+     * soon as a node is found whose height did not change
+     * 
+     * @param n The lowest node that may be out of balance
+     */
+    private void rebalanceUp(Node<AnyType> n)
+    {
+        while (n != null)
+        {
+            Node<AnyType> p = n.parent;
+            int oldHeight = n.height;
+            Node<AnyType> b = balance(n);
+
+            if (b != n)
+            {
+                replaceChild(n, p, b);
+            }
+            else if (b.height == oldHeight)
+            {
+                return;
+            }
+
+            n = p;
+        }
+    }
+
+    /**
+     * Unlinks a node that has at most one child
+     * 
+     * @param n The node to unlink
+     */
+    private void unlink(Node<AnyType> n)
+    {
+        Node<AnyType> p = n.parent;
+        replaceChild(n, p, n.left != null ? n.left : n.right);
+        --distinct;
+        if (!countsStale)
+        {
+            for (Node<AnyType> m = p; m != null; m = m.parent)
+            {
+                --m.nodes;
+            }
+        }
+
+        if (balanced)
+        {
+            rebalanceUp(p);
+        }
+    }
+
+    /**
+     * Deletes the smallest value, taking it straight from the cached leftmost
+     * node. On an unbalanced tree the subtree counts are left stale rather
+     * than fixed on the way to the root, so this is amortized O(1) there; a
+     * balanced tree fixes them in O(log n)
+     *
+     * @return The value deleted
+     */
+    @Override
+    public AnyType deleteMin()
+    {
+        //If the list is empty, you can't remove anything!
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        Node<AnyType> n = minNode;
+        //Holds the data that's to be removed
+        AnyType rem = n.items.data;
+        --size;
+        ++modCount;
+        --n.copies;
+        dropEndCounts(n, 1);
+
+        //If the data is counted more than once, just drop one copy
+        if (n.items.count > 1)
+        {
+            --n.items.count;
+            return rem;
+        }
+
+        //If the node has duplicates, only remove one of the duplicates
+        if (n.items.next != null)
+        {
+            n.items = n.items.next;
+            return rem;
+        }
+
+        //The next smallest is the leftmost node of the right subtree, or the
+        //parent if there is no right subtree
+        Node<AnyType> next = n.right != null ? leftmost(n.right) : n.parent;
+        unlink(n);
+        minNode = next;
+        if (next == null)
+        {
+            maxNode = null;
+        }
+
+        return rem;
+    }
+
+    /**
+     * Deletes the largest value, taking it straight from the cached rightmost
+     * node. On an unbalanced tree the subtree counts are left stale rather
+     * than fixed on the way to the root, so this is amortized O(1) there; a
+     * balanced tree fixes them in O(log n)
+     * 
+     * @return The value removed
+     */
+    @Override
+    public AnyType deleteMax()
+    {
+        //If the list is empty, you can't remove anything!
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        Node<AnyType> n = maxNode;
+        //Holds the data that's to be removed
+        AnyType rem = n.items.data;
+        --size;
+        ++modCount;
+        --n.copies;
+        dropEndCounts(n, 1);
+
+        //If the data is counted more than once, just drop one copy
+        if (n.items.count > 1)
+        {
+            --n.items.count;
+            return rem;
+        }
+
+        //If the node has duplicates, remove one of them
+        if (n.items.next != null)
+        {
+            n.items = n.items.next;
+            return rem;
+        }
+
+        //The next largest is the rightmost node of the left subtree, or the
+        //parent if there is no left subtree
+        Node<AnyType> next = n.left != null ? rightmost(n.left) : n.parent;
+        unlink(n);
+        maxNode = next;
+        if (next == null)
+        {
+            minNode = null;
+        }
+
+        return rem;
+    }
+
+    /**
+     * Deletes up to k of the smallest values in one in-order sweep from the
+     * cached leftmost node. Nodes whose whole bucket is taken are not
+     * unlinked one by one; everything left of the first surviving node is
+     * split off the tree at once
+     * 
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMin(int k, Collection<? super AnyType> out)
+    {
+        //Nothing to take, leave modCount so open iterators keep working
+        if (k <= 0 || minNode == null)
+        {
+            return 0;
+        }
+
+        int removed = 0;
+        int gone = 0;
+        Node<AnyType> n = minNode;
+
+        while (n != null && removed < k)
+        {
+            int before = removed;
+            Node.ListNode<AnyType> l = n.items;
+            for (; l != null && removed < k; l = l.next)
+            {
+                int take = Math.min(l.count, k - removed);
+                for (int i = 0; i < take; i++)
+                {
+                    out.add(l.data);
+                }
+                removed += take;
+
+                //Only some copies were taken, the rest stay in the bucket
+                if (take < l.count)
+                {
+                    l.count -= take;
+                    break;
+                }
+            }
+
+            //Only part of the bucket was taken, this node stays
+            if (l != null)
+            {
+                n.items = l;
+                n.copies -= removed - before;
+                break;
+            }
+
+            n = successor(n);
+            ++gone;
+        }
+
+        size -= removed;
+        ++modCount;
+        if (n == null)
+        {
+            makeEmpty();
+        }
+        else if (gone > 0)
+        {
+            cutBefore(n);
+            distinct -= gone;
+        }
+        else
+        {
+            dropEndCounts(n, removed);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Deletes up to k of the largest values in one in-order sweep from the
+     * cached rightmost node. Everything right of the first surviving node is
+     * split off the tree at once
+     * 
+     * @param k The most values to delete
+     * @param out The collection the deleted values are added to
+     * @return The number of values deleted
+     */
+    @Override
+    public int deleteMax(int k, Collection<? super AnyType> out)
+    {
+        //Nothing to take, leave modCount so open iterators keep working
+        if (k <= 0 || maxNode == null)
+        {
+            return 0;
+        }
+
+        int removed = 0;
+        int gone = 0;
+        Node<AnyType> n = maxNode;
+
+        while (n != null && removed < k)
+        {
+            int before = removed;
+            Node.ListNode<AnyType> l = n.items;
+            for (; l != null && removed < k; l = l.next)
+            {
+                int take = Math.min(l.count, k - removed);
+                for (int i = 0; i < take; i++)
+                {
+                    out.add(l.data);
+                }
+                removed += take;
+
+                //Only some copies were taken, the rest stay in the bucket
+                if (take < l.count)
+                {
+                    l.count -= take;
+                    break;
+                }
+            }
+
+            //Only part of the bucket was taken, this node stays
+            if (l != null)
+            {
+                n.items = l;
+                n.copies -= removed - before;
+                break;
+            }
+
+            n = predecessor(n);
+            ++gone;
+        }
+
+        size -= removed;
+        ++modCount;
+        if (n == null)
+        {
+            makeEmpty();
+        }
+        else if (gone > 0)
+        {
+            cutAfter(n);
+            distinct -= gone;
+        }
+        else
+        {
+            dropEndCounts(n, removed);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes every node smaller than a node by walking from it up to the
+     * root. Each ancestor it hangs to the left of is joined back on together
+     * with its right subtree; the others are dropped along with their left
+     * subtrees
+     * 
+     * @param b The node that becomes the smallest
+     */
+    private void cutBefore(Node<AnyType> b)
+    {
+        Node<AnyType> child = b;
+        Node<AnyType> a = b.parent;
+        Node<AnyType> kept = join(null, b, b.right);
+
+        while (a != null)
+        {
+            Node<AnyType> up = a.parent;
+            if (a.left == child)
+            {
+                kept = join(kept, a, a.right);
+            }
+            child = a;
+            a = up;
+        }
+
+        root = kept;
+        root.parent = null;
+        minNode = b;
+    }
+
+    /**
+     * Removes every node larger than a node. Mirror image of cutBefore
+     * 
+     * @param b The node that becomes the largest
+     */
+    private void cutAfter(Node<AnyType> b)
+    {
+        Node<AnyType> child = b;
+        Node<AnyType> a = b.parent;
+        Node<AnyType> kept = join(b.left, b, null);
+
+        while (a != null)
+        {
+            Node<AnyType> up = a.parent;
+            if (a.right == child)
+            {
+                kept = join(a.left, a, kept);
+            }
+            child = a;
+            a = up;
+        }
+
+        root = kept;
+        root.parent = null;
+        maxNode = b;
+    }
+
+    /**
+     * Joins two subtrees and a middle node, where everything in l is smaller
+     * than m and everything in r is larger. When the tree is balanced the
+     * middle node is pushed down the spine of the taller side so the result
+     * is an AVL tree; this costs O(difference in heights). The caller is
+     * responsible for linking the returned node to its parent
+     * 
+     * @param l The left subtree, may be null
+     * @param m The middle node
+     * @param r The right subtree, may be null
+     * @return The root of the joined tree
+     */
+    private Node<AnyType> join(Node<AnyType> l, Node<AnyType> m,
+            Node<AnyType> r)
+    {
+        if (balanced && height(l) > height(r) + 1)
+        {
+            l.right = join(l.right, m, r);
+            l.right.parent = l;
+            return balance(l);
+        }
+        if (balanced && height(r) > height(l) + 1)
+        {
+            r.left = join(l, m, r.left);
+            r.left.parent = r;
+            return balance(r);
+        }
+
+        m.left = l;
+        m.right = r;
+        if (l != null)
+        {
+            l.parent = m;
+        }
+        if (r != null)
+        {
+            r.parent = m;
+        }
+        update(m);
+
+        return m;
+    }
+
+    /**
+     * Follows the left most path of a subtree
+     * 
+     * @param n The root of the subtree
+     * @return The left most node
+     */
+    private static <AnyType> Node<AnyType> leftmost(Node<AnyType> n)
+    {
+        while (n.left != null)
+        {
+            n = n.left;
+        }
+        return n;
+    }
+
+    /**
+     * Follows the right most path of a subtree
+     * 
+     * @param n The root of the subtree
+     * @return The right most node
+     */
+    private static <AnyType> Node<AnyType> rightmost(Node<AnyType> n)
+    {
+        while (n.right != null)
+        {
+            n = n.right;
+        }
+        return n;
+    }
+
+    /**
+     * Finds the next node in sorted order by following parent links
+     * 
+     * @param n The current node
+     * @return The next node, or null if n is the largest
+     */
+    private static <AnyType> Node<AnyType> successor(Node<AnyType> n)
+    {
+        if (n.right != null)
+        {
+            return leftmost(n.right);
+        }
+
+        Node<AnyType> p = n.parent;
+        while (p != null && n == p.right)
+        {
+            n = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    /**
+     * Finds the previous node in sorted order by following parent links
+     * 
+     * @param n The current node
+     * @return The previous node, or null if n is the smallest
+     */
+    private static <AnyType> Node<AnyType> predecessor(Node<AnyType> n)
+    {
+        if (n.left != null)
+        {
+            return rightmost(n.left);
+        }
+
+        Node<AnyType> p = n.parent;
+        while (p != null && n == p.left)
+        {
+            n = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    /**
+     * Finds the kth smallest value, counting from 0 and counting every
+     * duplicate. Items that compare equal are interchangeable here, so the
+     * first item of the node is returned. The first query after deletes from
+     * the ends also rebuilds the stale subtree counts in O(n)
+     * 
+     * @param k The position in sorted order
+     * @return The kth smallest value
+     * @throws IndexOutOfBoundsException If k is not between 0 and size - 1
+     */
+    public AnyType select(int k)
+    {
+        if (k < 0 || k >= size)
+        {
+            throw new IndexOutOfBoundsException("k: " + k + ", size: " + size);
+        }
+
+        recount();
+        Node<AnyType> n = root;
+        while (true)
+        {
+            int left = total(n.left);
+            if (k < left)
+            {
+                n = n.left;
+            }
+            else if (k < left + n.copies)
+            {
+                return n.items.data;
+            }
+            else
+            {
+                k -= left + n.copies;
+                n = n.right;
+            }
+        }
+    }
+
+    /**
+     * Counts the items that are smaller than x. Like select, the first query
+     * after deletes from the ends rebuilds the subtree counts in O(n)
+     * 
+     * @param x The value to rank
+     * @return The number of items smaller than x
+     */
+    public int rank(AnyType x)
+    {
+        return countBelow(x, false, false);
+    }
+
+    /**
+     * Finds the median. With an even number of items the lower of the two
+     * middle items is returned
+     * 
+     * @return The median value
+     */
+    public AnyType median()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+
+        return select((size - 1) / 2);
+    }
+
+    /**
+     * Counts the items between two values, both ends included
+     * 
+     * @param lo The low end of the range
+     * @param hi The high end of the range
+     * @return The number of items x with lo <= x <= hi
+     */
+    public int countInRange(AnyType lo, AnyType hi)
+    {
+        if (myCompare(lo, hi) > 0)
+        {
+            return 0;
+        }
+
+        return countBelow(hi, true, false) - countBelow(lo, false, false);
+    }
+
+    /**
+     * Counts the items smaller than x (or no larger, if inclusive) by
+     * walking down to x and adding up everything passed on the left
+     * 
+     * @param x The value to compare against
+     * @param inclusive True to also count items equal to x
+     * @param distinctOnly True to count nodes instead of items
+     * @return The number of items (or nodes)
+     */
+    private int countBelow(AnyType x, boolean inclusive, boolean distinctOnly)
+    {
+        recount();
+        int count = 0;
+        Node<AnyType> n = root;
+
+        while (n != null)
+        {
+            int c = myCompare(x, n.items.data);
+            int left = distinctOnly ? nodes(n.left) : total(n.left);
+            int here = distinctOnly ? 1 : n.copies;
+            if (c < 0)
+            {
+                n = n.left;
+            }
+            else if (c > 0)
+            {
+                count += left + here;
+                n = n.right;
+            }
+            else
+            {
+                return count + left + (inclusive ? here : 0);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Removes every item smaller than x. The tree is split at the first node
+     * not smaller than x, so whole subtrees are dropped at once and the cost
+     * is O(log n) on a balanced tree however many items go
+     * 
+     * @param x The cutoff
+     * @return The number of items removed
+     */
+    public int removeLessThan(AnyType x)
+    {
+        Node<AnyType> b = ceiling(x, true);
+        int removed;
+
+        if (b == null)
+        {
+            removed = size;
+            makeEmpty();
+        }
+        else if (b == minNode)
+        {
+            removed = 0;
+        }
+        else
+        {
+            removed = countBelow(x, false, false);
+            cutBefore(b);
+            size -= removed;
+            distinct = root.nodes;
+            ++modCount;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes every item larger than x. Mirror image of removeLessThan
+     * 
+     * @param x The cutoff
+     * @return The number of items removed
+     */
+    public int removeGreaterThan(AnyType x)
+    {
+        Node<AnyType> b = floor(x, true);
+        int removed;
+
+        if (b == null)
+        {
+            removed = size;
+            makeEmpty();
+        }
+        else if (b == maxNode)
+        {
+            removed = 0;
+        }
+        else
+        {
+            removed = size - countBelow(x, true, false);
+            cutAfter(b);
+            size -= removed;
+            distinct = root.nodes;
+            ++modCount;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Returns a read-only view of the items smaller than hi. The view reads
+     * through to this tree, so it sees later changes
+     * 
+     * @param hi The end of the range (excluded)
+     * @return The view
+     */
+    public DoubleEndedPriorityQueue<AnyType> headQueue(AnyType hi)
+    {
+        return new RangeView(null, hi);
+    }
+
+    /**
+     * Returns a read-only view of the items no smaller than lo. The view
+     * reads through to this tree, so it sees later changes
+     * 
+     * @param lo The start of the range (included)
+     * @return The view
+     */
+    public DoubleEndedPriorityQueue<AnyType> tailQueue(AnyType lo)
+    {
+        return new RangeView(lo, null);
+    }
+
+    /**
+     * Returns a read-only view of the items from lo up to but not including
+     * hi. The view reads through to this tree, so it sees later changes
+     * 
+     * @param lo The start of the range (included)
+     * @param hi The end of the range (excluded)
+     * @return The view
+     * @throws IllegalArgumentException If lo is larger than hi
+     */
+    public DoubleEndedPriorityQueue<AnyType> subQueue(AnyType lo, AnyType hi)
+    {
+        if (myCompare(lo, hi) > 0)
+        {
+            throw new IllegalArgumentException("lo is larger than hi");
+        }
+
+        return new RangeView(lo, hi);
+    }
+
+    /**
+     * Finds the first node no smaller than x (or larger, if not inclusive)
+     * 
+     * @param x The value to compare against
+     * @param inclusive True to accept a node equal to x
+     * @return The node, or null if there is none
+     */
+    private Node<AnyType> ceiling(AnyType x, boolean inclusive)
+    {
+        Node<AnyType> best = null;
+        Node<AnyType> n = root;
+
+        while (n != null)
+        {
+            int c = myCompare(x, n.items.data);
+            if (c == 0 && inclusive)
+            {
+                return n;
+            }
+            if (c < 0)
+            {
+                best = n;
+                n = n.left;
+            }
+            else
+            {
+                n = n.right;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Finds the last node no larger than x (or smaller, if not inclusive)
+     * 
+     * @param x The value to compare against
+     * @param inclusive True to accept a node equal to x
+     * @return The node, or null if there is none
+     */
+    private Node<AnyType> floor(AnyType x, boolean inclusive)
+    {
+        Node<AnyType> best = null;
+        Node<AnyType> n = root;
+
+        while (n != null)
+        {
+            int c = myCompare(x, n.items.data);
+            if (c == 0 && inclusive)
+            {
+                return n;
+            }
+            if (c > 0)
+            {
+                best = n;
+                n = n.right;
+            }
+            else
+            {
+                n = n.left;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Finds the smallest value in the tree
+     * 
+     * @return The smallest value
+     */
+    @Override
+    public AnyType findMin()
+    {
+        if (isEmpty())
+        {
+            throw new UnderflowException();
+        }
+        return minNode.items.data;
+    }
+
+    /**
+     * Finds the largest value in the tree
+     * 
+     * @return The largest value 
+     */
+    @Override
+    public AnyType findMax()
+    {
+        if (root == null)
+        {
+            throw new UnderflowException();
+        }
+
+        return maxNode.items.data;
+    }
+
+    /**
+     * Checks if the tree is empty
+     * 
+     * @return Boolean showing whether tree is empty or not
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Prints the tree. Walks the nodes in order with a non-recursive
+     * iterator so degenerate trees cannot overflow the stack
+     * 
+     * @return The printed tree
+     */
+    public String toString()
+    {
+        //If the tree is empty, just return an empty brace
+        if (isEmpty())
+        {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder("[ ");
+        for (AnyType x : this)
+        {
+            sb.append(x);
+            sb.append(" ");
+        }
+        sb.append("]");
+
+        return new String(sb);
+    }
+
+    /**
+     * Returns the height of the tree, the number of edges on its longest
+     * path from the root. A balanced tree keeps its height in the root; an
+     * unbalanced one is walked in O(n) time without recursion
+     *
+     * @return The height, -1 if the tree is empty
+     */
+    public int height()
+    {
+        if (balanced || root == null)
+        {
+            return height(root);
+        }
+
+        //Walk the tree with the parent pointers, tracking the depth
+        int best = 0;
+        int depth = 0;
+        Node<AnyType> prev = null;
+        Node<AnyType> n = root;
+        while (n != null)
+        {
+            Node<AnyType> next;
+            if (prev == n.parent)
+            {
+                best = Math.max(best, depth);
+                next = n.left != null ? n.left
+                        : n.right != null ? n.right : n.parent;
+            }
+            else if (prev == n.left && n.right != null)
+            {
+                next = n.right;
+            }
+            else
+            {
+                next = n.parent;
+            }
+
+            depth += next == n.parent ? -1 : 1;
+            prev = n;
+            n = next;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of items in the largest duplicate bucket. Walks
+     * the nodes, so it takes O(distinct) time
+     *
+     * @return The largest bucket, 0 if the tree is empty
+     */
+    public int maxBucketLength()
+    {
+        int longest = 0;
+        for (Node<AnyType> n = minNode; n != null; n = successor(n))
+        {
+            longest = Math.max(longest, n.copies);
+        }
+        return longest;
+    }
+
+    /**
+     * Prints the queue to an Appendable one item at a time, in the same
+     * format as toString, so a large queue is never held as one String
+     *
+     * @param out Where the text goes
+     * @throws IOException If out fails to take the text
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        QueueWriter.write(iterator(), out);
+    }
+
+    /**
+     * Prints the queue as UTF-8 to a channel, in the same format as
+     * toString. Only a small fixed buffer is held between writes. The
+     * channel is left open
+     *
+     * @param ch Where the bytes go
+     * @throws IOException If the channel fails to take the bytes
+     */
+    public void writeTo(WritableByteChannel ch) throws IOException
+    {
+        QueueWriter.write(iterator(), ch);
+    }
+
+    /**
+     * Describes the queue in one short line for logs: its size, smallest
+     * and largest values, and the first n items in ascending order
+     *
+     * @param n The most items to print
+     * @return The summary
+     */
+    public String summary(int n)
+    {
+        return QueueWriter.summary(this, iterator(), n);
+    }
+
+    /**
+     * Writes the queue to a snapshot file in ascending order
+     *
+     * @param file The file to write, replaced if it exists
+     * @param codec Encodes the items
+     * @throws IOException If the file cannot be written
+     */
+    public void writeSnapshot(Path file, SnapshotCodec<? super AnyType> codec)
+            throws IOException
+    {
+        QueueSnapshot.write(file, size, iterator(), codec);
+    }
+
+    /**
+     * Replaces the contents of the queue with a snapshot file. The file is
+     * memory mapped and the items come back already sorted, so addAll
+     * skips its sort and builds the tree in linear time
+     *
+     * @param file The file to read
+     * @param codec Decodes the items
+     * @throws IOException If the file cannot be read or is not a snapshot
+     */
+    public void readSnapshot(Path file, SnapshotCodec<? extends AnyType> codec)
+            throws IOException
+    {
+        AnyType[] items = QueueSnapshot.read(file, codec);
+        makeEmpty();
+        addAll(items);
+    }
+
+    /**
+     * Returns an iterator over the items in ascending order. Equal items
+     * come out in the order deleteMin would return them
+     * 
+     * @return The iterator
+     */
+    @Override
+    public Iterator<AnyType> iterator()
+    {
+        return new InOrderIterator(minNode, null, false);
+    }
+
+    /**
+     * Returns an iterator over the items in descending order. Equal items
+     * come out in the order deleteMax would return them
+     * 
+     * @return The iterator
+     */
+    public Iterator<AnyType> descendingIterator()
+    {
+        return new InOrderIterator(maxNode, null, true);
+    }
+
+    /**
+     * Returns a spliterator over the items in ascending order. Splitting
+     * hands off the first half of the remaining nodes, found with the
+     * subtree counts, so a parallel stream divides the tree into subtrees
+     * 
+     * @return The spliterator
+     */
+    @Override
+    public Spliterator<AnyType> spliterator()
+    {
+        //Rebuild stale counts now, before splits can run on other threads
+        recount();
+        return new TreeSpliterator(minNode, 0, distinct);
+    }
+
+    /**
+     * Returns a sequential stream over the items in ascending order. Call
+     * parallel() on it to spread the work across threads
+     * 
+     * @return The stream
+     */
+    public Stream<AnyType> stream()
+    {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Finds the node at a position in sorted order, counting nodes rather
+     * than items
+     * 
+     * @param i The position, from 0 to distinct - 1
+     * @return The node
+     */
+    private Node<AnyType> nodeAt(int i)
+    {
+        recount();
+        Node<AnyType> n = root;
+        while (true)
+        {
+            int left = nodes(n.left);
+            if (i < left)
+            {
+                n = n.left;
+            }
+            else if (i == left)
+            {
+                return n;
+            }
+            else
+            {
+                i -= left + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    /**
+     * Walks items in order, duplicates in bucket order. Uses the parent links
+     * instead of a stack, so it needs O(1) extra space whatever the shape of
+     * the tree. Fails fast if the tree is changed while walking
+     */
+    private class InOrderIterator implements Iterator<AnyType>
+    {
+        private Node<AnyType> node;             //Node being walked
+        private final Node<AnyType> last;       //Last node to walk
+        private final boolean descending;       //Direction of the walk
+        private Node.ListNode<AnyType> item;    //Next item to return
+        private int copies;                     //Copies of item left
+        private final int expectedModCount = modCount;
+
+        /**
+         * Creates an iterator over a run of nodes
+         * 
+         * @param first The first node to walk, null for none
+         * @param last The last node to walk, null to go to the end
+         * @param descending True to walk from larger to smaller nodes
+         */
+        InOrderIterator(Node<AnyType> first, Node<AnyType> last,
+                boolean descending)
+        {
+            this.node = first;
+            this.last = last;
+            this.descending = descending;
+            item = first == null ? null : first.items;
+            copies = item == null ? 0 : item.count;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return item != null;
+        }
+
+        @Override
+        public AnyType next()
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (item == null)
+            {
+                throw new NoSuchElementException();
+            }
+
+            AnyType x = item.data;
+            if (--copies > 0)
+            {
+                return x;
+            }
+
+            item = item.next;
+            if (item == null)
+            {
+                if (node == last)
+                {
+                    node = null;
+                }
+                else
+                {
+                    node = descending ? predecessor(node) : successor(node);
+                }
+                item = node == null ? null : node.items;
+            }
+            copies = item == null ? 0 : item.count;
+            return x;
+        }
+    }
+
+    /**
+     * Spliterator over a run of nodes given by their positions in sorted
+     * order. Fails fast if the tree is changed while it is in use
+     */
+    private class TreeSpliterator implements Spliterator<AnyType>
+    {
+        private Node<AnyType> node;             //Node being walked
+        private Node.ListNode<AnyType> item;    //Next item to return
+        private int copies;                     //Copies of item left
+        private int lo;                         //Position of node
+        private final int hi;                   //Position after the last
+        private final int expectedModCount = modCount;
+
+        /**
+         * Creates a spliterator starting at the beginning of a node
+         * 
+         * @param node The first node, null if there are none
+         * @param lo The position of the first node
+         * @param hi The position after the last node
+         */
+        TreeSpliterator(Node<AnyType> node, int lo, int hi)
+        {
+            this.node = node;
+            this.lo = lo;
+            this.hi = hi;
+            item = node == null ? null : node.items;
+            copies = item == null ? 0 : item.count;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super AnyType> action)
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (lo >= hi)
+            {
+                return false;
+            }
+
+            AnyType x = item.data;
+            if (--copies == 0)
+            {
+                item = item.next;
+                if (item == null && ++lo < hi)
+                {
+                    node = successor(node);
+                    item = node.items;
+                }
+                copies = item == null ? 0 : item.count;
+            }
+
+            action.accept(x);
+            return true;
+        }
+
+        @Override
+        public Spliterator<AnyType> trySplit()
+        {
+            int mid = (lo + hi) >>> 1;
+            if (mid <= lo || modCount != expectedModCount)
+            {
+                return null;
+            }
+
+            //The first half keeps the current place, this one jumps ahead
+            TreeSpliterator prefix = new TreeSpliterator(node, lo, mid);
+            prefix.item = item;
+            prefix.copies = copies;
+
+            node = nodeAt(mid);
+            item = node.items;
+            copies = item.count;
+            lo = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            //Exact for the whole tree, scaled by the average run of
+            //duplicates after a split
+            return distinct == 0 ? 0 : (long) (hi - lo) * size / distinct;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return Spliterator.ORDERED | Spliterator.SORTED;
+        }
+
+        @Override
+        public Comparator<? super AnyType> getComparator()
+        {
+            return cmp == NaturalOrder.INSTANCE ? null : cmp;
+        }
+    }
+
+    /**
+     * A read-only window onto the items of the tree between two bounds.
+     * Every query walks down the backing tree, so it costs O(log n) on a
+     * balanced tree and always sees the current contents
+     */
+    private class RangeView implements DoubleEndedPriorityQueue<AnyType>
+    {
+        private final AnyType lo;               //Start (included), or null
+        private final AnyType hi;               //End (excluded), or null
+
+        /**
+         * Creates a view
+         * 
+         * @param lo The start of the range (included), null for none
+         * @param hi The end of the range (excluded), null for none
+         */
+        RangeView(AnyType lo, AnyType hi)
+        {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * Finds the first node in the range
+         * 
+         * @return The node, or null if the range is empty
+         */
+        private Node<AnyType> first()
+        {
+            Node<AnyType> n = lo == null ? minNode : ceiling(lo, true);
+            return n != null && (hi == null || myCompare(n.items.data, hi) < 0)
+                    ? n : null;
+        }
+
+        /**
+         * Finds the last node in the range
+         * 
+         * @return The node, or null if the range is empty
+         */
+        private Node<AnyType> last()
+        {
+            Node<AnyType> n = hi == null ? maxNode : floor(hi, false);
+            return n != null && (lo == null || myCompare(n.items.data, lo) >= 0)
+                    ? n : null;
+        }
+
+        /**
+         * Counts the items (or nodes) in the range
+         * 
+         * @param distinctOnly True to count nodes instead of items
+         * @return The count
+         */
+        private int count(boolean distinctOnly)
+        {
+            int below = hi == null
+                    ? (distinctOnly ? distinct : size)
+                    : countBelow(hi, false, distinctOnly);
+            int before = lo == null ? 0 : countBelow(lo, false, distinctOnly);
+            return Math.max(below - before, 0);
+        }
+
+        @Override
+        public void makeEmpty()
+        {
+            throw new UnsupportedOperationException("Read-only view");
+        }
+
+        @Override
+        public void add(AnyType x)
+        {
+            throw new UnsupportedOperationException("Read-only view");
+        }
+
+        @Override
+        public AnyType deleteMin()
+        {
+            throw new UnsupportedOperationException("Read-only view");
+        }
+
+        @Override
+        public AnyType deleteMax()
+        {
+            throw new UnsupportedOperationException("Read-only view");
+        }
+
+        @Override
+        public AnyType findMin()
+        {
+            Node<AnyType> n = first();
+            if (n == null)
+            {
+                throw new UnderflowException();
+            }
+            return n.items.data;
+        }
+
+        @Override
+        public AnyType findMax()
+        {
+            Node<AnyType> n = last();
+            if (n == null)
+            {
+                throw new UnderflowException();
+            }
+            return n.items.data;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return first() == null;
+        }
+
+        @Override
+        public int size()
+        {
+            return count(false);
+        }
+
+        @Override
+        public int distinctSize()
+        {
+            return count(true);
+        }
+
+        @Override
+        public Comparator<? super AnyType> comparator()
+        {
+            return cmp;
+        }
+
+        @Override
+        public String toString()
+        {
+            Node<AnyType> first = first();
+            if (first == null)
+            {
+                return "[]";
+            }
+
+            StringBuilder sb = new StringBuilder("[ ");
+            for (Iterator<AnyType> itr
+                    = new InOrderIterator(first, last(), false); itr.hasNext();)
+            {
+                sb.append(itr.next());
+                sb.append(" ");
+            }
+            sb.append("]");
+
+            return new String(sb);
         }
     }
 }
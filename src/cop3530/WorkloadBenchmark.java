@@ -0,0 +1,372 @@
+package cop3530;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Runs every double ended priority queue through a matrix of workloads and
+ * sizes. Each combination is warmed up, then measured over several fresh
+ * runs, and reported as throughput, latency percentiles and bytes allocated
+ * per operation. Run it with "ant bench"; the system properties below pick
+ * what to run and can be set with -D on the ant command line
+ *
+ * bench.queues     tree, balanced-tree, counting-tree, btree, list, heap,
+ *                  interval-heap, blocking-heap, bounded-heap, concurrent
+ * bench.workloads  random, sorted, reverse, duplicates, mixed, hold
+ * bench.sizes      Comma separated sizes, 1000 to 10000000 by default
+ * bench.warmup     Unmeasured runs before measuring, 1 by default. Small
+ *                  sizes keep warming up until a million operations ran
+ * bench.iterations Measured runs, 3 by default
+ *
+ * @author David Romero PID: 3624439
+ */
+public class WorkloadBenchmark
+{
+    private static final String QUEUES = "tree,balanced-tree,counting-tree,"
+            + "btree,list,heap,interval-heap,blocking-heap,bounded-heap,"
+            + "concurrent";
+    private static final String WORKLOADS
+            = "random,sorted,reverse,duplicates,mixed,hold";
+    private static final String SIZES = "1000,10000,100000,1000000,10000000";
+
+    private static final int SAMPLES = 1 << 20;     //Most latencies kept a run
+    private static final int UNBALANCED_LIMIT = 20000;//Quadratic past this
+    private static final int DUPLICATE_VALUES = 16; //Keys in duplicates
+    private static final long WARMUP_OPS = 1000000; //Fewest warmup operations
+
+    /**
+     * Times a sample of the operations in a run and counts them all
+     */
+    static class Recorder
+    {
+        private final int stride;           //Every stride-th op is timed
+        private final long[] latencies;     //Sampled times in ns
+        private int samples = 0;            //Latencies recorded
+        private long ops = 0;               //Operations seen
+
+        /**
+         * Creates a recorder for a run of the given number of ops. The
+         * sample array is allocated up front so recording does not show up
+         * in the allocation count
+         *
+         * @param expected The number of operations in the run
+         */
+        Recorder(long expected)
+        {
+            stride = (int) Math.max(1, expected / SAMPLES);
+            latencies = new long[(int) (expected / stride + 1)];
+        }
+
+        /**
+         * Called before an operation
+         *
+         * @return The start time if this operation is timed, otherwise 0
+         */
+        long begin()
+        {
+            return ops++ % stride == 0 ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Called after an operation
+         *
+         * @param start What begin returned
+         */
+        void end(long start)
+        {
+            if (start != 0 && samples < latencies.length)
+            {
+                latencies[samples++] = System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * Results of the measured runs of one queue, workload and size
+     */
+    static class Result
+    {
+        private long ops = 0;               //Operations over all runs
+        private long nanos = 0;             //Time over all runs
+        private long bytes = 0;             //Allocated over all runs
+        private long[] latencies = new long[0];//Sampled times of all runs
+
+        /**
+         * Adds one measured run
+         *
+         * @param rec The recorder of the run
+         * @param elapsed The time the run took in nanoseconds
+         * @param allocated The bytes the run allocated, or -1 if unknown
+         */
+        void add(Recorder rec, long elapsed, long allocated)
+        {
+            ops += rec.ops;
+            nanos += elapsed;
+            bytes = bytes < 0 || allocated < 0 ? -1 : bytes + allocated;
+
+            int old = latencies.length;
+            latencies = Arrays.copyOf(latencies, old + rec.samples);
+            System.arraycopy(rec.latencies, 0, latencies, old, rec.samples);
+        }
+
+        /**
+         * Finds a latency percentile
+         *
+         * @param p The percentile, between 0 and 1
+         * @return The latency in nanoseconds
+         */
+        long percentile(double p)
+        {
+            return latencies[(int) (p * (latencies.length - 1))];
+        }
+
+        /**
+         * Prints the result on one line
+         *
+         * @param label The queue, workload and size
+         */
+        void print(String label)
+        {
+            Arrays.sort(latencies);
+            System.out.printf("%-40s %12.0f ops/s  p50 %6d  p99 %7d  "
+                    + "p99.9 %8d ns  %s%n", label, ops * 1e9 / nanos,
+                    percentile(0.5), percentile(0.99), percentile(0.999),
+                    bytes < 0 ? "alloc n/a" : String.format("%7.1f B/op",
+                            (double) bytes / ops));
+        }
+    }
+
+    /**
+     * Creates an empty queue by name
+     *
+     * @param name The name of the queue
+     * @param n The number of keys the workload adds
+     * @return The queue
+     */
+    static DoubleEndedPriorityQueue<Integer> create(String name, int n)
+    {
+        switch (name)
+        {
+            case "tree":
+                return new TreeDoubleEndedPriorityQueue<>();
+            case "balanced-tree":
+                return new TreeDoubleEndedPriorityQueue<>(true);
+            case "counting-tree":
+                return new TreeDoubleEndedPriorityQueue<>(null, true, true);
+            case "btree":
+                return new BTreeDoubleEndedPriorityQueue<>();
+            case "list":
+                return new ListDoubleEndedPriorityQueue<>();
+            case "heap":
+                return new MinMaxHeapDoubleEndedPriorityQueue<>();
+            case "interval-heap":
+                return new IntervalHeapDoubleEndedPriorityQueue<>();
+            case "blocking-heap":
+                return new MinMaxHeapBlockingDoubleEndedPriorityQueue<>();
+            case "bounded-heap":
+                return new BoundedDoubleEndedPriorityQueue<>(
+                        new MinMaxHeapDoubleEndedPriorityQueue<Integer>(), n,
+                        false);
+            case "concurrent":
+                return new ConcurrentDoubleEndedPriorityQueue<>();
+            default:
+                throw new IllegalArgumentException("Unknown queue: " + name);
+        }
+    }
+
+    /**
+     * Builds the keys a workload adds
+     *
+     * @param workload The name of the workload
+     * @param n The number of keys
+     * @return The keys
+     */
+    static Integer[] keys(String workload, int n)
+    {
+        switch (workload)
+        {
+            case "sorted":
+            case "reverse":
+                return Benchmark.keys(workload, n);
+            case "duplicates":
+            case "hold":
+                Integer[] keys = new Integer[n];
+                Random r = new Random(1);
+                int range = workload.equals("hold") ? n : DUPLICATE_VALUES;
+                for (int i = 0; i < n; i++)
+                {
+                    keys[i] = r.nextInt(range);
+                }
+                return keys;
+            case "random":
+            case "mixed":
+                return Benchmark.keys("random", n);
+            default:
+                throw new IllegalArgumentException("Unknown workload: "
+                        + workload);
+        }
+    }
+
+    /**
+     * Runs one workload on a queue
+     *
+     * The hold workload adds every key untimed, then repeats deleteMin
+     * followed by adding the removed key plus a random increment, keeping the
+     * queue at a steady size. Mixed adds every key, then deletes from a
+     * randomly picked end until empty. The others add every key, then delete
+     * half from each end
+     *
+     * @param workload The name of the workload
+     * @param q An empty queue
+     * @param keys The keys to add
+     * @param rec Records the operations
+     */
+    static void drive(String workload, DoubleEndedPriorityQueue<Integer> q,
+            Integer[] keys, Recorder rec)
+    {
+        Random r = new Random(2);
+
+        if (workload.equals("hold"))
+        {
+            q.addAll(keys);
+            for (int i = 0; i < keys.length; i++)
+            {
+                long t = rec.begin();
+                int x = q.deleteMin();
+                q.add(x + r.nextInt(keys.length));
+                rec.end(t);
+            }
+            return;
+        }
+
+        for (Integer k : keys)
+        {
+            long t = rec.begin();
+            q.add(k);
+            rec.end(t);
+        }
+
+        if (workload.equals("mixed"))
+        {
+            while (!q.isEmpty())
+            {
+                boolean min = r.nextBoolean();
+                long t = rec.begin();
+                if (min)
+                {
+                    q.deleteMin();
+                }
+                else
+                {
+                    q.deleteMax();
+                }
+                rec.end(t);
+            }
+            return;
+        }
+
+        for (int i = 0; i < keys.length / 2; i++)
+        {
+            long t = rec.begin();
+            q.deleteMin();
+            rec.end(t);
+        }
+        while (!q.isEmpty())
+        {
+            long t = rec.begin();
+            q.deleteMax();
+            rec.end(t);
+        }
+    }
+
+    /**
+     * Returns the bytes this thread has allocated so far, if the JVM can tell
+     *
+     * @return The bytes allocated, or -1 if unknown
+     */
+    static long allocatedBytes()
+    {
+        java.lang.management.ThreadMXBean bean
+                = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+        {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Warms up and measures one queue, workload and size
+     *
+     * @param queue The name of the queue
+     * @param workload The name of the workload
+     * @param keys The keys the workload adds
+     * @param warmup The number of unmeasured runs
+     * @param iterations The number of measured runs
+     */
+    static void measure(String queue, String workload, Integer[] keys,
+            int warmup, int iterations)
+    {
+        String label = queue + ", " + workload + ", n = " + keys.length;
+        if (queue.equals("tree") && keys.length > UNBALANCED_LIMIT
+                && (workload.equals("sorted") || workload.equals("reverse")))
+        {
+            System.out.printf("%-40s skipped, unbalanced tree is quadratic "
+                    + "on sorted input%n", label);
+            return;
+        }
+
+        long expected = workload.equals("hold") ? keys.length
+                : 2L * keys.length;
+        long done = 0;
+        for (int i = 0; i < warmup || done < WARMUP_OPS; i++)
+        {
+            drive(workload, create(queue, keys.length), keys,
+                    new Recorder(expected));
+            done += expected;
+        }
+
+        Result result = new Result();
+        for (int i = 0; i < iterations; i++)
+        {
+            DoubleEndedPriorityQueue<Integer> q = create(queue, keys.length);
+            Recorder rec = new Recorder(expected);
+
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            drive(workload, q, keys, rec);
+            long elapsed = System.nanoTime() - start;
+            long after = allocatedBytes();
+
+            result.add(rec, elapsed, bytes < 0 ? -1 : after - bytes);
+        }
+        result.print(label);
+    }
+
+    public static void main(String[] args)
+    {
+        String[] queues = System.getProperty("bench.queues", QUEUES)
+                .split(",");
+        String[] workloads = System.getProperty("bench.workloads", WORKLOADS)
+                .split(",");
+        String[] sizes = System.getProperty("bench.sizes", SIZES).split(",");
+        int warmup = Integer.getInteger("bench.warmup", 1);
+        int iterations = Integer.getInteger("bench.iterations", 3);
+
+        for (String size : sizes)
+        {
+            int n = Integer.parseInt(size.trim());
+            for (String workload : workloads)
+            {
+                Integer[] keys = keys(workload.trim(), n);
+                for (String queue : queues)
+                {
+                    measure(queue.trim(), workload.trim(), keys, warmup,
+                            iterations);
+                }
+            }
+        }
+    }
+}